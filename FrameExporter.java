@@ -0,0 +1,415 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Offscreen export of a run to an animated GIF or a PNG sequence, no display needed:
+//
+//   java -Djava.awt.headless=true FrameExporter --algorithm="Quick Sort" --size=200
+//        [--distribution=random] [--format=gif|png] [--out=quick-sort.gif]
+//        [--fps=25] [--steps-per-frame=10] [--width=960] [--height=540] [--encoders=N]
+//        [--top-k=10]
+//
+// The sorter runs unpaced on its own thread and streams its operations to the
+// renderer in chunks through a small bounded queue; the renderer replays them at a
+// fixed number of steps per frame. Frames are drawn into a fixed pool of images.
+// Both are backpressure: the sorter waits when the renderer falls behind, and the
+// renderer waits for a free image whenever the encoder threads fall behind, so
+// heap use stays bounded however long the run is.
+public class FrameExporter {
+    // Compact stream of highlights and writes, handed over in fixed-size chunks
+    static class OperationLog implements SortEngine.Listener {
+        static final int HIGHLIGHT = 0, WRITE = 1;
+        static final int[] END = new int[0];
+        private static final int CHUNK = 3 << 12; // ints per chunk, whole operations only
+        private static final int QUEUED_CHUNKS = 8;
+
+        private final int[] array;
+        private final BlockingQueue<int[]> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        private int[] chunk = new int[CHUNK];
+        private int used = 0;
+
+        OperationLog(int[] array) {
+            this.array = array;
+        }
+
+        private void append(int type, int a, int b) {
+            if (used == CHUNK) {
+                hand(chunk);
+                chunk = new int[CHUNK];
+                used = 0;
+            }
+            chunk[used++] = type;
+            chunk[used++] = a;
+            chunk[used++] = b;
+        }
+
+        // Blocks the sorter while the queue is full
+        private void hand(int[] full) {
+            try {
+                chunks.put(full);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // the export is being abandoned, drop the rest
+            }
+        }
+
+        // Called once by the sorter thread when the run is over
+        void close() {
+            hand(Arrays.copyOf(chunk, used));
+            hand(END);
+        }
+
+        int[] take() throws InterruptedException {
+            return chunks.take();
+        }
+
+        @Override
+        public void highlight(int index1, int index2) {
+            append(HIGHLIGHT, index1, index2);
+        }
+
+        @Override
+        public void changed(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                append(WRITE, i, array[i]);
+            }
+        }
+
+        @Override
+        public void statsChanged(int comparisons, int swaps) {
+        }
+
+        @Override
+        public void pace() {
+        }
+    }
+
+    // Encoding happens on the pool, writing happens in frame order on one thread
+    interface FrameSink {
+        byte[] encode(BufferedImage frame, int index) throws IOException;
+        void write(byte[] encoded, int index, boolean last) throws IOException;
+        void close() throws IOException;
+    }
+
+    static class PngSequenceSink implements FrameSink {
+        private final File directory;
+
+        PngSequenceSink(File directory) throws IOException {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            this.directory = directory;
+        }
+
+        @Override
+        public byte[] encode(BufferedImage frame, int index) throws IOException {
+            ImageIO.write(frame, "png", new File(directory, String.format("frame-%06d.png", index)));
+            return null;
+        }
+
+        @Override
+        public void write(byte[] encoded, int index, boolean last) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Each frame is encoded on the pool as a complete single-image GIF, so both the
+    // colour reduction and the LZW compression run in parallel. write() only splices
+    // the compressed image block into the animation. Measured at 960x540 before this
+    // split: about 9 ms per frame for colour reduction and 50 ms for the LZW pass,
+    // which used to run on the single writer thread.
+    static class GifSink implements FrameSink {
+        private final OutputStream output;
+        private final int delayCentis;
+        private boolean started = false;
+
+        GifSink(File file, int fps) throws IOException {
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            delayCentis = Math.max(2, Math.round(100f / fps));
+        }
+
+        @Override
+        public byte[] encode(BufferedImage frame, int index) throws IOException {
+            BufferedImage indexed = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_BYTE_INDEXED);
+            Graphics2D g2d = indexed.createGraphics();
+            g2d.drawImage(frame, 0, 0, null);
+            g2d.dispose();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (!ImageIO.write(indexed, "gif", bytes)) {
+                throw new IOException("No GIF writer available");
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public void write(byte[] encoded, int index, boolean last) throws IOException {
+            ByteBuffer gif = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+            int width = gif.getShort(6) & 0xFFFF;
+            int height = gif.getShort(8) & 0xFFFF;
+            int screenFlags = gif.get(10) & 0xFF;
+            gif.position(13);
+            byte[] colorTable = new byte[0];
+            if ((screenFlags & 0x80) != 0) {
+                colorTable = new byte[3 << ((screenFlags & 0x07) + 1)];
+                gif.get(colorTable);
+            }
+            if (!started) {
+                writeHeader(width, height);
+                started = true;
+            }
+
+            // Skip the standalone file's own extensions up to its image descriptor
+            while (gif.get(gif.position()) == 0x21) {
+                gif.position(gif.position() + 2);
+                skipSubBlocks(gif);
+            }
+            if (gif.get() != 0x2C) {
+                throw new IOException("Unexpected GIF layout in frame " + index);
+            }
+            byte[] descriptor = new byte[9];
+            gif.get(descriptor);
+            int imageFlags = descriptor[8] & 0xFF;
+
+            int delay = last ? 200 : delayCentis;
+            output.write(new byte[]{0x21, (byte) 0xF9, 4, 0, (byte) delay, (byte) (delay >> 8), 0, 0});
+            output.write(0x2C);
+            if ((imageFlags & 0x80) == 0 && colorTable.length > 0) {
+                // The global table of the standalone file becomes this frame's local table
+                descriptor[8] = (byte) ((imageFlags & 0x78) | 0x80 | (screenFlags & 0x07));
+                output.write(descriptor);
+                output.write(colorTable);
+            } else {
+                output.write(descriptor);
+            }
+            int data = gif.position();
+            gif.position(data + 1); // LZW minimum code size
+            skipSubBlocks(gif);
+            output.write(encoded, data, gif.position() - data);
+        }
+
+        // Header, a screen without a global colour table, and the loop-forever extension
+        private void writeHeader(int width, int height) throws IOException {
+            output.write("GIF89a".getBytes(StandardCharsets.US_ASCII));
+            output.write(new byte[]{(byte) width, (byte) (width >> 8), (byte) height, (byte) (height >> 8), 0, 0, 0});
+            output.write(new byte[]{0x21, (byte) 0xFF, 11});
+            output.write("NETSCAPE2.0".getBytes(StandardCharsets.US_ASCII));
+            output.write(new byte[]{3, 1, 0, 0, 0});
+        }
+
+        private static void skipSubBlocks(ByteBuffer gif) {
+            int size;
+            while ((size = gif.get() & 0xFF) != 0) {
+                gif.position(gif.position() + size);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (started) output.write(0x3B);
+            output.close();
+        }
+    }
+
+    private static final Future<byte[]> END = CompletableFuture.completedFuture(null);
+
+    private final int width, height, stepsPerFrame, encoders, topK;
+    private SortVerifier.Report verification;
+
+    FrameExporter(int width, int height, int stepsPerFrame, int encoders, int topK) {
+        this.width = width;
+        this.height = height;
+        this.stepsPerFrame = Math.max(1, stepsPerFrame);
+        this.encoders = Math.max(1, encoders);
+        this.topK = Math.max(1, topK);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String algorithm = "Quick Sort", distribution = "random", format = "gif", out = null;
+        int size = 100, fps = 25, stepsPerFrame = 10, width = 960, height = 540;
+        int topK = SortBenchmark.TOP_K;
+        int encoders = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--algorithm=")) algorithm = value;
+            else if (arg.startsWith("--distribution=")) distribution = value;
+            else if (arg.startsWith("--format=")) format = value;
+            else if (arg.startsWith("--out=")) out = value;
+            else if (arg.startsWith("--size=")) size = Integer.parseInt(value);
+            else if (arg.startsWith("--fps=")) fps = Integer.parseInt(value);
+            else if (arg.startsWith("--steps-per-frame=")) stepsPerFrame = Integer.parseInt(value);
+            else if (arg.startsWith("--width=")) width = Integer.parseInt(value);
+            else if (arg.startsWith("--height=")) height = Integer.parseInt(value);
+            else if (arg.startsWith("--encoders=")) encoders = Integer.parseInt(value);
+            else if (arg.startsWith("--top-k=")) topK = Integer.parseInt(value);
+            else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+        }
+        if (out == null) {
+            out = algorithm.toLowerCase().replace(' ', '-') + (format.equals("gif") ? ".gif" : "-frames");
+        }
+
+        int[] input = SortBenchmark.generate(distribution, size, 42L * size + distribution.hashCode());
+        FrameSink sink;
+        switch (format) {
+            case "gif": sink = new GifSink(new File(out), fps); break;
+            case "png": sink = new PngSequenceSink(new File(out)); break;
+            default:
+                System.err.println("Unknown format: " + format);
+                System.exit(2);
+                return;
+        }
+
+        long begin = System.nanoTime();
+        FrameExporter exporter = new FrameExporter(width, height, stepsPerFrame, encoders, topK);
+        int frames = exporter.export(algorithm, input, sink);
+        System.out.printf("Wrote %d frames to %s in %.1f s%n", frames, out, (System.nanoTime() - begin) / 1e9);
+        System.out.println(exporter.verification.summary());
+        if (!exporter.verification.passed()) System.exit(1);
+    }
+
+    public int export(String algorithm, int[] input, FrameSink sink) throws IOException, InterruptedException {
+        int[] data = input.clone();
+        OperationLog log = new OperationLog(data);
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        AtomicReference<RuntimeException> sortFailure = new AtomicReference<>();
+        Thread sorter = new Thread(() -> {
+            try {
+                SortEngine engine = new SortEngine(data, new AtomicBoolean(false), stopped, log);
+                engine.setTopK(topK);
+                engine.run(algorithm);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                sortFailure.set(e);
+            } finally {
+                log.close();
+            }
+        }, "frame-sorter");
+        sorter.setDaemon(true);
+        sorter.start();
+
+        // Two images per encoder keeps every encoder busy while the renderer draws the next one
+        int poolSize = encoders * 2;
+        BlockingQueue<BufferedImage> freeImages = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            freeImages.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        }
+        BlockingQueue<Future<byte[]>> pending = new ArrayBlockingQueue<>(poolSize + 1);
+        ExecutorService pool = Executors.newFixedThreadPool(encoders, runnable -> {
+            Thread thread = new Thread(runnable, "frame-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicInteger written = new AtomicInteger();
+        Thread writerThread = new Thread(() -> {
+            try {
+                Future<byte[]> next = pending.take();
+                while (next != END) {
+                    Future<byte[]> following = pending.take();
+                    if (failure.get() == null) {
+                        try {
+                            sink.write(next.get(), written.get(), following == END);
+                            written.incrementAndGet();
+                        } catch (ExecutionException e) {
+                            failure.set(e.getCause() instanceof IOException
+                                    ? (IOException) e.getCause() : new IOException(e.getCause()));
+                        } catch (IOException e) {
+                            failure.set(e);
+                        }
+                    }
+                    next = following;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "frame-writer");
+        writerThread.start();
+
+        try {
+            int[] values = input.clone();
+            int highlight1 = -1, highlight2 = -1;
+            int frameIndex = 0;
+            long step = 0;
+            for (int[] chunk = log.take(); chunk != OperationLog.END; chunk = log.take()) {
+                if (failure.get() != null) {
+                    stopped.set(true); // keep draining so the sorter can reach the end
+                    continue;
+                }
+                for (int p = 0; p < chunk.length; p += 3) {
+                    if (chunk[p] == OperationLog.WRITE) {
+                        values[chunk[p + 1]] = chunk[p + 2];
+                        continue;
+                    }
+                    highlight1 = chunk[p + 1];
+                    highlight2 = chunk[p + 2];
+                    if (step++ % stepsPerFrame == 0) {
+                        submitFrame(values, highlight1, highlight2, frameIndex++, sink, freeImages, pending, pool);
+                    }
+                }
+            }
+            if (failure.get() == null) {
+                submitFrame(values, -1, -1, frameIndex, sink, freeImages, pending, pool);
+            }
+        } finally {
+            stopped.set(true);
+            pending.put(END);
+            writerThread.join();
+            pool.shutdown();
+            sink.close();
+        }
+        sorter.join();
+        if (sortFailure.get() != null) throw sortFailure.get();
+        if (failure.get() != null) throw failure.get();
+        verification = SortVerifier.verify(algorithm, input, data, null, topK);
+        return written.get();
+    }
+
+    private void submitFrame(int[] values, int highlight1, int highlight2, int index, FrameSink sink,
+                             BlockingQueue<BufferedImage> freeImages,
+                             BlockingQueue<Future<byte[]>> pending,
+                             ExecutorService pool) throws InterruptedException {
+        BufferedImage frame = freeImages.take(); // blocks while every image is still being encoded
+        Graphics2D g2d = frame.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(SortingAlgorithmVisualizer.BACKGROUND_COLOR);
+        g2d.fillRect(0, 0, width, height);
+        SortingAlgorithmVisualizer.drawBars(g2d, values, highlight1, highlight2, width, height, false);
+        g2d.dispose();
+
+        pending.put(pool.submit(() -> {
+            try {
+                return sink.encode(frame, index);
+            } finally {
+                freeImages.put(frame);
+            }
+        }));
+    }
+}
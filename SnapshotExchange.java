@@ -0,0 +1,78 @@
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lock-free triple buffer between the thread that owns the array (the sorting
+// thread while a run is active, the EDT otherwise) and the paint code.
+// The producer fills its back buffer and swaps it into the middle slot with one
+// atomic write; the renderer takes the middle slot whenever it holds a newer
+// snapshot. Neither side ever waits for the other.
+public class SnapshotExchange {
+    public static class Snapshot {
+        public int[] values = new int[0];
+        public int highlight1 = -1, highlight2 = -1;
+        public int comparisons, swaps;
+        public long version;
+        public long publishedAt; // System.nanoTime() at publish
+    }
+
+    private static final int FRESH = 4; // set in middle while the renderer has not taken it
+    private static final int BLOCK_SHIFT = 6; // dirty tracking granularity: 64 elements
+
+    private final Snapshot[] buffers = {new Snapshot(), new Snapshot(), new Snapshot()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // Producer side only
+    private final BitSet[] dirtyBlocks = {new BitSet(), new BitSet(), new BitSet()};
+    private int back = 0;
+    private int[] source;
+    private long version = 0;
+
+    // Renderer side only
+    private int front = 2;
+
+    // Record that source[from, to] changed since the last publish
+    public void markDirty(int from, int to) {
+        int fromBlock = from >> BLOCK_SHIFT;
+        int toBlock = (to >> BLOCK_SHIFT) + 1;
+        for (BitSet dirty : dirtyBlocks) {
+            dirty.set(fromBlock, toBlock);
+        }
+    }
+
+    // Copy what changed into the back buffer, then hand it over
+    public void publish(int[] array, int highlight1, int highlight2, int comparisons, int swaps) {
+        if (array != source) {
+            source = array;
+            markDirty(0, Math.max(0, array.length - 1));
+        }
+
+        Snapshot snapshot = buffers[back];
+        BitSet dirty = dirtyBlocks[back];
+        if (snapshot.values.length != array.length) {
+            snapshot.values = array.clone();
+        } else {
+            for (int block = dirty.nextSetBit(0); block >= 0; block = dirty.nextSetBit(block + 1)) {
+                int from = block << BLOCK_SHIFT;
+                if (from >= array.length) break;
+                System.arraycopy(array, from, snapshot.values, from, Math.min(1 << BLOCK_SHIFT, array.length - from));
+            }
+        }
+        dirty.clear();
+        snapshot.highlight1 = highlight1;
+        snapshot.highlight2 = highlight2;
+        snapshot.comparisons = comparisons;
+        snapshot.swaps = swaps;
+        snapshot.version = ++version;
+        snapshot.publishedAt = System.nanoTime();
+
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // Latest published snapshot; stays valid until the next acquire
+    public Snapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & 3;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,447 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// Headless regression benchmark for the SortEngine algorithms.
+//
+//   java SortBenchmark [--algorithms=Quick Sort,Heap Sort] [--sizes=1000,5000]
+//                      [--distributions=random,sorted] [--forks=5] [--reps=5]
+//                      [--warmup-ms=500] [--sample-ms=50] [--threshold=5]
+//                      [--results=benchmark-results.tsv] [--update-baseline]
+//
+// Each cell first warms up for a fixed time, then takes reps samples. A sample
+// times a batch of sorts sized to last at least --sample-ms, so single sorts that
+// finish in microseconds are not lost in timer and JIT noise. The whole matrix runs
+// in --forks fresh JVMs, and each fork's mean is one observation: how the JIT
+// compiles a sort differs from one JVM to the next, so samples from a single JVM
+// are not independent and would make the interval far too narrow. With --forks=1
+// the matrix runs in this JVM and its samples stand in, which understates the spread.
+//
+// Each run is compared with the stored baseline for the same algorithm, size,
+// distribution and JVM/hardware fingerprint; forks get this JVM's options so the
+// fingerprint describes them too. A baseline taken with other forks, reps, warmup,
+// sample time or K is not compared at all. A result only counts as a
+// regression when the whole 95% confidence interval of the slowdown lies
+// above the threshold, and then the process exits with status 1. Every result is
+// also checked with SortVerifier; a wrong result fails the run the same way.
+public class SortBenchmark {
+    static final String[] ALGORITHMS = {"Bubble Sort", "Selection Sort", "Insertion Sort",
+                                        "Merge Sort", "Quick Sort", "Heap Sort",
+                                        "Quickselect (Median)", "Introselect (Median)",
+                                        "Heap Top-K", "Partial Quick Sort (Top-K)"};
+    static final String[] DISTRIBUTIONS = {"random", "sorted", "reversed", "few-unique"};
+
+    static final int TOP_K = 10; // K for the top-K modes, part of what a baseline measures
+    static final int MAX_BATCH_INTS = 1 << 22; // caps the pre-copied inputs of one batch at 16 MB
+
+    static volatile long sink; // keeps the sorted output observable to the JIT
+
+    // Mean, spread and operation counts of one benchmark cell
+    static class Result {
+        double meanNanos, stdDevNanos;
+        int reps;
+        long comparisons, swaps;
+        String methodology = "";
+        SortVerifier.Report verification; // of the last repetition, not stored
+        double[] samples; // not stored
+
+        double ciHalfWidth() {
+            return reps < 2 ? 0 : tCritical(reps - 1) * stdDevNanos / Math.sqrt(reps);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> algorithms = Arrays.asList(ALGORITHMS);
+        List<String> distributions = Arrays.asList(DISTRIBUTIONS);
+        int[] sizes = {1000, 5000};
+        int reps = 5, forks = 5;
+        long warmupMillis = 500, sampleMillis = 50;
+        double threshold = 5;
+        Path resultsFile = Paths.get("benchmark-results.tsv");
+        boolean updateBaseline = false, forkChild = false;
+        List<String> childArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--algorithms=")) algorithms = Arrays.asList(value.split(","));
+            else if (arg.startsWith("--distributions=")) distributions = Arrays.asList(value.split(","));
+            else if (arg.startsWith("--sizes=")) sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            else if (arg.startsWith("--reps=")) reps = Integer.parseInt(value);
+            else if (arg.startsWith("--warmup-ms=")) warmupMillis = Long.parseLong(value);
+            else if (arg.startsWith("--sample-ms=")) sampleMillis = Long.parseLong(value);
+            else if (arg.startsWith("--forks=")) forks = Integer.parseInt(value);
+            else if (arg.startsWith("--threshold=")) threshold = Double.parseDouble(value);
+            else if (arg.startsWith("--results=")) resultsFile = Paths.get(value);
+            else if (arg.equals("--update-baseline")) updateBaseline = true;
+            else if (arg.equals("--fork-child")) forkChild = true;
+            else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+            if (arg.startsWith("--algorithms=") || arg.startsWith("--distributions=") || arg.startsWith("--sizes=")
+                    || arg.startsWith("--reps=") || arg.startsWith("--warmup-ms=") || arg.startsWith("--sample-ms=")) {
+                childArgs.add(arg);
+            }
+        }
+        if (reps < 1 || forks < 1 || (forks == 1 && reps < 2)) {
+            System.err.println("A confidence interval needs at least 2 forks, or 2 reps with --forks=1");
+            System.exit(2);
+        }
+
+        if (forkChild) {
+            System.out.println("fingerprint\t" + fingerprint());
+            for (String algorithm : algorithms) {
+                for (String distribution : distributions) {
+                    for (int size : sizes) {
+                        Result result = measure(algorithm, generate(distribution, size, 42L * size + distribution.hashCode()),
+                                reps, warmupMillis * 1_000_000, sampleMillis * 1_000_000);
+                        System.out.println(cellKey(algorithm, size, distribution) + "\t" + format(result));
+                    }
+                }
+            }
+            return;
+        }
+
+        String fingerprint = fingerprint();
+        String methodology = "forks=" + forks + ",reps=" + reps + ",warmup-ms=" + warmupMillis
+                + ",sample-ms=" + sampleMillis + ",top-k=" + TOP_K;
+        Map<String, Result> baseline = load(resultsFile);
+        System.out.println("Fingerprint " + fingerprint + " (" + describeEnvironment() + "), " + methodology);
+        Map<String, Result> measured = new LinkedHashMap<>();
+        if (forks > 1) {
+            measured = runForks(forks, childArgs, fingerprint);
+        }
+        System.out.printf("%-26s %-11s %8s %16s %14s %9s  %s%n",
+                "Algorithm", "Input", "Size", "Mean (ms)", "Baseline (ms)", "Change", "Verdict");
+
+        int regressions = 0, incomparable = 0;
+        for (String algorithm : algorithms) {
+            for (String distribution : distributions) {
+                for (int size : sizes) {
+                    Result current = measured.get(cellKey(algorithm, size, distribution));
+                    if (current == null) {
+                        current = measure(algorithm, generate(distribution, size, 42L * size + distribution.hashCode()),
+                                reps, warmupMillis * 1_000_000, sampleMillis * 1_000_000);
+                    }
+                    current.methodology = methodology;
+                    if (!current.verification.passed()) {
+                        regressions++;
+                        System.out.printf("%-26s %-11s %8d  WRONG RESULT: %s%n",
+                                algorithm, distribution, size, current.verification.summary());
+                        continue;
+                    }
+                    String key = cellKey(algorithm, size, distribution) + "\t" + fingerprint;
+                    Result previous = baseline.get(key);
+
+                    String verdict;
+                    String change = "";
+                    String baselineMillis = "-";
+                    if (previous == null) {
+                        verdict = "new baseline";
+                        baseline.put(key, current);
+                    } else if (!previous.methodology.equals(methodology)) {
+                        verdict = "not compared, baseline has " + previous.methodology;
+                        if (updateBaseline) baseline.put(key, current);
+                        else incomparable++;
+                    } else {
+                        baselineMillis = String.format("%.4f", previous.meanNanos / 1e6);
+                        change = String.format("%+.1f%%", (current.meanNanos / previous.meanNanos - 1) * 100);
+                        verdict = compare(current, previous, threshold);
+                        if (verdict.startsWith("REGRESSION")) regressions++;
+                        if (previous.comparisons != current.comparisons || previous.swaps != current.swaps) {
+                            verdict += " (operation counts changed)";
+                        }
+                        if (updateBaseline) baseline.put(key, current);
+                    }
+                    System.out.printf("%-26s %-11s %8d %8.4f +-%6.4f %14s %9s  %s%n",
+                            algorithm, distribution, size, current.meanNanos / 1e6,
+                            current.ciHalfWidth() / 1e6, baselineMillis, change, verdict);
+                }
+            }
+        }
+
+        save(resultsFile, baseline);
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) or wrong result(s), threshold " + threshold + "%");
+            System.exit(1);
+        }
+        if (incomparable > 0) {
+            System.out.println(incomparable + " result(s) not compared: rerun with the baseline's settings or --update-baseline");
+            System.exit(2);
+        }
+    }
+
+    // Reproducible inputs, shared with the other headless tools
+    static int[] generate(String distribution, int size, long seed) {
+        Random rand = new Random(seed);
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = rand.nextInt(500) + 1;
+        }
+        switch (distribution) {
+            case "random":
+                break;
+            case "sorted":
+                Arrays.sort(data);
+                break;
+            case "reversed":
+                Arrays.sort(data);
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    int temp = data[i];
+                    data[i] = data[j];
+                    data[j] = temp;
+                }
+                break;
+            case "few-unique":
+                for (int i = 0; i < size; i++) {
+                    data[i] = (data[i] % 5 + 1) * 100;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        return data;
+    }
+
+    // Each sample is the mean time of one sort within a batch
+    static Result measure(String algorithm, int[] input, int reps, long warmupNanos, long sampleNanos)
+            throws InterruptedException {
+        int maxBatch = Math.max(1, Math.min(1 << 16, MAX_BATCH_INTS / Math.max(1, input.length)));
+        int[][] copies = new int[maxBatch][];
+        SortEngine[] last = new SortEngine[1];
+
+        // Warm up by time, not count: a fixed count is seconds for bubble sort and microseconds for quickselect
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        do {
+            timeBatch(algorithm, input, copies, 1, last);
+        } while (System.nanoTime() < warmupEnd);
+
+        // Grow the batch until one batch lasts at least sampleNanos
+        int batch = 1;
+        long elapsed;
+        while ((elapsed = timeBatch(algorithm, input, copies, batch, last)) < sampleNanos && batch < maxBatch) {
+            long estimate = elapsed <= 0 ? batch * 2L : batch * sampleNanos / elapsed + 1;
+            batch = (int) Math.min(maxBatch, Math.max(batch * 2L, estimate));
+        }
+
+        double[] samples = new double[reps];
+        for (int rep = 0; rep < reps; rep++) {
+            samples[rep] = (double) timeBatch(algorithm, input, copies, batch, last) / batch;
+        }
+
+        Result result = summarize(samples);
+        result.comparisons = last[0].getComparisons();
+        result.swaps = last[0].getSwaps();
+        result.verification = SortVerifier.verify(algorithm, input, copies[batch - 1], null, TOP_K);
+        return result;
+    }
+
+    // Sorts batch fresh copies of input and returns the nanoseconds spent sorting;
+    // the copies are refilled before the clock starts
+    private static long timeBatch(String algorithm, int[] input, int[][] copies, int batch, SortEngine[] last)
+            throws InterruptedException {
+        for (int b = 0; b < batch; b++) {
+            if (copies[b] == null) copies[b] = new int[input.length];
+            System.arraycopy(input, 0, copies[b], 0, input.length);
+        }
+        long begin = System.nanoTime();
+        for (int b = 0; b < batch; b++) {
+            last[0] = new SortEngine(copies[b]);
+            last[0].setTopK(TOP_K);
+            last[0].run(algorithm);
+        }
+        long elapsed = System.nanoTime() - begin;
+        for (int b = 0; b < batch; b++) {
+            if (input.length > 0) sink += copies[b][input.length / 2];
+        }
+        return elapsed;
+    }
+
+    static Result summarize(double[] samples) {
+        Result result = new Result();
+        result.samples = samples;
+        result.reps = samples.length;
+        result.meanNanos = Arrays.stream(samples).average().orElse(0);
+        double sumSquares = 0;
+        for (double sample : samples) {
+            sumSquares += (sample - result.meanNanos) * (sample - result.meanNanos);
+        }
+        result.stdDevNanos = Math.sqrt(sumSquares / Math.max(1, samples.length - 1));
+        return result;
+    }
+
+    static String cellKey(String algorithm, int size, String distribution) {
+        return algorithm + "\t" + size + "\t" + distribution;
+    }
+
+    // Runs the matrix in fresh JVMs, one after another; per cell, each fork's mean
+    // becomes one sample of the result
+    static Map<String, Result> runForks(int forks, List<String> childArgs, String fingerprint)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SortBenchmark.class.getName());
+        command.add("--fork-child");
+        command.addAll(childArgs);
+
+        Map<String, List<Result>> perFork = new LinkedHashMap<>();
+        for (int fork = 1; fork <= forks; fork++) {
+            System.out.println("Running fork " + fork + " of " + forks);
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields[0].equals("fingerprint")) {
+                        if (!fields[1].equals(fingerprint)) {
+                            throw new IOException("Benchmark fork " + fork + " has fingerprint " + fields[1]
+                                    + ", expected " + fingerprint);
+                        }
+                        continue;
+                    }
+                    String key = fields[0] + "\t" + fields[1] + "\t" + fields[2];
+                    perFork.computeIfAbsent(key, k -> new ArrayList<>()).add(parse(fields));
+                }
+            }
+            if (process.waitFor() != 0) {
+                throw new IOException("Benchmark fork " + fork + " exited with status " + process.exitValue());
+            }
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Result>> entry : perFork.entrySet()) {
+            List<Result> runs = entry.getValue();
+            Result result = summarize(runs.stream().mapToDouble(run -> run.meanNanos).toArray());
+            Result last = runs.get(runs.size() - 1);
+            result.comparisons = last.comparisons;
+            result.swaps = last.swaps;
+            result.verification = runs.stream().map(run -> run.verification)
+                    .filter(report -> !report.passed()).findFirst().orElse(last.verification);
+            results.put(entry.getKey(), result);
+        }
+        return results;
+    }
+
+    // One child output line after the cell key: counts, verification and the raw samples
+    static String format(Result result) {
+        StringBuilder samples = new StringBuilder();
+        for (double sample : result.samples) {
+            if (samples.length() > 0) samples.append(',');
+            samples.append(sample);
+        }
+        return result.comparisons + "\t" + result.swaps + "\t" + result.verification.passed() + "\t"
+                + result.verification.summary() + "\t" + samples;
+    }
+
+    static Result parse(String[] fields) {
+        Result result = summarize(Arrays.stream(fields[7].split(",")).mapToDouble(Double::parseDouble).toArray());
+        result.comparisons = Long.parseLong(fields[3]);
+        result.swaps = Long.parseLong(fields[4]);
+        result.verification = new SortVerifier.Report(Boolean.parseBoolean(fields[5]), fields[6]);
+        return result;
+    }
+
+    // Welch's 95% interval for the difference of means, judged against the threshold
+    static String compare(Result current, Result previous, double thresholdPercent) {
+        double varianceCurrent = current.stdDevNanos * current.stdDevNanos / current.reps;
+        double variancePrevious = previous.stdDevNanos * previous.stdDevNanos / previous.reps;
+        double standardError = Math.sqrt(varianceCurrent + variancePrevious);
+        double degrees = standardError == 0 ? Double.MAX_VALUE
+                : Math.pow(standardError, 4) / (varianceCurrent * varianceCurrent / Math.max(1, current.reps - 1)
+                        + variancePrevious * variancePrevious / Math.max(1, previous.reps - 1));
+        double margin = tCritical((int) Math.floor(degrees)) * standardError;
+        double difference = current.meanNanos - previous.meanNanos;
+        double allowed = previous.meanNanos * thresholdPercent / 100;
+
+        if (difference - margin > allowed) return "REGRESSION";
+        if (difference + margin < -allowed) return "faster";
+        if (difference - margin > 0) return "slower, within threshold";
+        return "ok";
+    }
+
+    // Two-sided 95% Student t quantiles; rounds df down so the interval stays conservative
+    static double tCritical(int degrees) {
+        int[] df = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 15, 20, 30, 60, 120};
+        double[] t = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306,
+                      2.262, 2.228, 2.179, 2.131, 2.086, 2.042, 2.000, 1.980};
+        if (degrees > 120) return 1.960;
+        double value = t[0];
+        for (int i = 0; i < df.length && df[i] <= degrees; i++) {
+            value = t[i];
+        }
+        return value;
+    }
+
+    static String describeEnvironment() {
+        return System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + ", " + Runtime.getRuntime().availableProcessors() + " cpus"
+                + ", " + (Runtime.getRuntime().maxMemory() >> 20) + " MB heap"
+                + (jvmArguments().isEmpty() ? "" : ", " + String.join(" ", jvmArguments()));
+    }
+
+    // Options this JVM was started with, passed on to forks; a debugger agent is
+    // left out since every fork would wait on the same port
+    static List<String> jvmArguments() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(arg -> !arg.startsWith("-agentlib:jdwp") && !arg.startsWith("-Xrunjdwp") && !arg.equals("-Xdebug"))
+                .collect(Collectors.toList());
+    }
+
+    static String fingerprint() {
+        return String.format("%08x", describeEnvironment().hashCode());
+    }
+
+    static Map<String, Result> load(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (!Files.exists(file)) return results;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t");
+                Result result = new Result();
+                result.meanNanos = Double.parseDouble(fields[4]);
+                result.stdDevNanos = Double.parseDouble(fields[5]);
+                result.reps = Integer.parseInt(fields[6]);
+                result.comparisons = Long.parseLong(fields[7]);
+                result.swaps = Long.parseLong(fields[8]);
+                result.methodology = fields.length > 9 ? fields[9] : "unrecorded settings";
+                results.put(fields[0] + "\t" + fields[1] + "\t" + fields[2] + "\t" + fields[3], result);
+            }
+        }
+        return results;
+    }
+
+    static void save(Path file, Map<String, Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# algorithm\tsize\tdistribution\tfingerprint\tmeanNanos\tstdDevNanos\treps\tcomparisons\tswaps\tmethodology");
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            lines.add(entry.getKey() + "\t" + result.meanNanos + "\t" + result.stdDevNanos + "\t"
+                    + result.reps + "\t" + result.comparisons + "\t" + result.swaps + "\t" + result.methodology);
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,549 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The sorting and selection algorithms, separated from Swing so the same
+// instrumented code can drive the visualizer or run unpaced on a copy of the data.
+public class SortEngine {
+    // Receives every instrumented step; the visualizer highlights and sleeps here
+    public interface Listener {
+        void highlight(int index1, int index2);
+        void statsChanged(int comparisons, int swaps);
+        void pace() throws InterruptedException;
+        void changed(int from, int to);
+    }
+
+    public static final Listener SILENT = new Listener() {
+        @Override
+        public void highlight(int index1, int index2) {
+        }
+
+        @Override
+        public void statsChanged(int comparisons, int swaps) {
+        }
+
+        @Override
+        public void pace() {
+        }
+
+        @Override
+        public void changed(int from, int to) {
+        }
+    };
+
+    private final int[] array;
+    private final AtomicBoolean isPaused, isStopped;
+    private final Listener listener;
+    private int comparisons = 0, swaps = 0;
+    private int topK = 1;
+    private int[] tags; // optional element identities, moved along with the values
+    private int peakStackDepth = 0;
+    private boolean recordPhases = true;
+
+    public SortEngine(int[] array, AtomicBoolean isPaused, AtomicBoolean isStopped, Listener listener) {
+        this.array = array;
+        this.isPaused = isPaused;
+        this.isStopped = isStopped;
+        this.listener = listener;
+    }
+
+    public SortEngine(int[] array) {
+        this(array, new AtomicBoolean(false), new AtomicBoolean(false), SILENT);
+    }
+
+    public void setTopK(int topK) {
+        this.topK = Math.max(1, topK);
+    }
+
+    // Off for runs that are not the one being shown, so their phases stay out of a recording
+    public void setRecordPhases(boolean recordPhases) {
+        this.recordPhases = recordPhases;
+    }
+
+    // Lets SortVerifier check stability: tags[i] follows array[i] through every move
+    public void setTags(int[] tags) {
+        this.tags = tags;
+    }
+
+    public int getComparisons() {
+        return comparisons;
+    }
+
+    public int getSwaps() {
+        return swaps;
+    }
+
+    // Most frames the iterative quick/merge sorts held on their explicit stack at once:
+    // a quick sort frame is a pending range, a merge sort frame a range or a pending merge
+    public int getPeakStackDepth() {
+        return peakStackDepth;
+    }
+
+    private SortProfiler.PhaseEvent beginPhase(String phase, int from, int to) {
+        return recordPhases ? SortProfiler.beginPhase(phase, from, to) : null;
+    }
+
+    // Fixed-capacity stack of int frames that stands in for recursion
+    private final class IntStack {
+        private final int[] data;
+        private final int frameSize;
+        private int size = 0;
+
+        IntStack(int frameSize, int maxFrames) {
+            this.data = new int[frameSize * maxFrames];
+            this.frameSize = frameSize;
+        }
+
+        void push(int a, int b) {
+            ensureRoom();
+            data[size++] = a;
+            data[size++] = b;
+            peakStackDepth = Math.max(peakStackDepth, size / frameSize);
+        }
+
+        void push(int a, int b, int c) {
+            ensureRoom();
+            data[size++] = a;
+            data[size++] = b;
+            data[size++] = c;
+            peakStackDepth = Math.max(peakStackDepth, size / frameSize);
+        }
+
+        int pop() {
+            return data[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void ensureRoom() {
+            if (size + frameSize > data.length) {
+                throw new IllegalStateException("Stack capacity of " + data.length / frameSize + " frames exceeded");
+            }
+        }
+    }
+
+    // floor(log2 n) + 1: the most times a range of n elements can be halved
+    private static int maxDepth(int n) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, n));
+    }
+
+    public void run(String algorithm) throws InterruptedException {
+        int k = Math.min(topK, array.length); // the default K of 1 still has to fit an empty array
+        switch (algorithm) {
+            case "Bubble Sort": bubbleSort(); break;
+            case "Selection Sort": selectionSort(); break;
+            case "Insertion Sort": insertionSort(); break;
+            case "Merge Sort": mergeSort(0, array.length - 1); break;
+            case "Quick Sort": quickSort(0, array.length - 1); break;
+            case "Heap Sort": heapSort(); break;
+            case "Quickselect (Median)": quickSelect(array.length / 2); break;
+            case "Introselect (Median)": introSelect(array.length / 2); break;
+            case "Heap Top-K": heapTopK(k); break;
+            case "Partial Quick Sort (Top-K)": partialQuickSort(0, array.length - 1, array.length - k); break;
+            default: throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    // The full sort a selection algorithm is measured against
+    public static String fullSortBaseline(String algorithm) {
+        switch (algorithm) {
+            case "Quickselect (Median)":
+            case "Introselect (Median)":
+            case "Partial Quick Sort (Top-K)":
+                return "Quick Sort";
+            case "Heap Top-K":
+                return "Heap Sort";
+            default:
+                return null;
+        }
+    }
+
+    private void highlight(int index1, int index2) {
+        listener.highlight(index1, index2);
+    }
+
+    private void updateStats() {
+        listener.statsChanged(comparisons, swaps);
+    }
+
+    private void pace() throws InterruptedException {
+        listener.pace();
+    }
+
+    private void swap(int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+        if (tags != null) {
+            int tag = tags[i];
+            tags[i] = tags[j];
+            tags[j] = tag;
+        }
+        listener.changed(i, i);
+        listener.changed(j, j);
+    }
+
+    private void bubbleSort() throws InterruptedException {
+        for (int i = 0; i < array.length - 1; i++) {
+            SortProfiler.PhaseEvent phase = beginPhase("pass", 0, array.length - i - 1);
+            for (int j = 0; j < array.length - i - 1; j++) {
+                if (isStopped.get()) return;
+                while (isPaused.get()) Thread.sleep(10);
+
+                highlight(j, j + 1);
+                comparisons++;
+                updateStats();
+                pace();
+
+                if (array[j] > array[j + 1]) {
+                    swap(j, j + 1);
+                    swaps++;
+                    updateStats();
+                }
+            }
+            SortProfiler.endPhase(phase);
+        }
+    }
+
+    private void selectionSort() throws InterruptedException {
+        for (int i = 0; i < array.length - 1; i++) {
+            int minIndex = i;
+            SortProfiler.PhaseEvent phase = beginPhase("pass", i, array.length - 1);
+            for (int j = i + 1; j < array.length; j++) {
+                if (isStopped.get()) return;
+                while (isPaused.get()) Thread.sleep(10);
+
+                highlight(minIndex, j);
+                comparisons++;
+                updateStats();
+                pace();
+
+                if (array[j] < array[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                swap(minIndex, i);
+                swaps++;
+                updateStats();
+            }
+            SortProfiler.endPhase(phase);
+        }
+    }
+
+    private void insertionSort() throws InterruptedException {
+        for (int i = 1; i < array.length; i++) {
+            int key = array[i];
+            int keyTag = tags != null ? tags[i] : 0;
+            int j = i - 1;
+            SortProfiler.PhaseEvent phase = beginPhase("pass", 0, i);
+            while (j >= 0 && array[j] > key) {
+                if (isStopped.get()) return;
+                while (isPaused.get()) Thread.sleep(10);
+
+                highlight(j, j + 1);
+                comparisons++;
+                array[j + 1] = array[j];
+                if (tags != null) tags[j + 1] = tags[j];
+                listener.changed(j + 1, j + 1);
+                j--;
+                swaps++;
+                updateStats();
+                pace();
+            }
+            array[j + 1] = key;
+            if (tags != null) tags[j + 1] = keyTag;
+            listener.changed(j + 1, j + 1);
+            SortProfiler.endPhase(phase);
+        }
+    }
+
+    // The top-down recursion unrolled onto an explicit stack: same merges, same order
+    private void mergeSort(int left, int right) throws InterruptedException {
+        IntStack stack = new IntStack(3, 2 * maxDepth(right - left + 1) + 3);
+        stack.push(left, right, 0);
+        while (!stack.isEmpty()) {
+            boolean halvesSorted = stack.pop() == 1;
+            right = stack.pop();
+            left = stack.pop();
+            if (left >= right) continue;
+            if (isStopped.get()) return;
+
+            int mid = (left + right) / 2;
+            if (halvesSorted) {
+                merge(left, mid, right);
+            } else {
+                stack.push(left, right, 1);
+                stack.push(mid + 1, right, 0);
+                stack.push(left, mid, 0);
+            }
+        }
+    }
+
+    private void merge(int left, int mid, int right) throws InterruptedException {
+        SortProfiler.PhaseEvent phase = beginPhase("merge", left, right);
+        int n1 = mid - left + 1;
+        int n2 = right - mid;
+        int[] L = new int[n1];
+        int[] R = new int[n2];
+        System.arraycopy(array, left, L, 0, n1);
+        System.arraycopy(array, mid + 1, R, 0, n2);
+        int[] tagsL = null, tagsR = null;
+        if (tags != null) {
+            tagsL = Arrays.copyOfRange(tags, left, mid + 1);
+            tagsR = Arrays.copyOfRange(tags, mid + 1, right + 1);
+        }
+
+        int i = 0, j = 0, k = left;
+        while (i < n1 && j < n2) {
+            if (isStopped.get()) return;
+            while (isPaused.get()) Thread.sleep(10);
+
+            highlight(left + i, mid + 1 + j);
+            comparisons++;
+            updateStats();
+            pace();
+
+            if (L[i] <= R[j]) {
+                if (tags != null) tags[k] = tagsL[i];
+                array[k] = L[i++];
+            } else {
+                if (tags != null) tags[k] = tagsR[j];
+                array[k] = R[j++];
+            }
+            listener.changed(k, k);
+            k++;
+            swaps++;
+            updateStats();
+        }
+        if (tags != null) {
+            System.arraycopy(tagsL, i, tags, k, n1 - i);
+            System.arraycopy(tagsR, j, tags, k + n1 - i, n2 - j);
+        }
+        int tail = k; // everything before tail was already reported one write at a time
+        while (i < n1) array[k++] = L[i++];
+        while (j < n2) array[k++] = R[j++];
+        if (tail <= right) listener.changed(tail, right);
+        SortProfiler.endPhase(phase);
+    }
+
+    // Keeps going on the smaller side and pushes the larger one, so the stack never
+    // holds more than log2(n) + 1 ranges, even when sorted input makes every split n - 1 : 0
+    private void quickSort(int low, int high) throws InterruptedException {
+        IntStack stack = new IntStack(2, maxDepth(high - low + 1) + 1);
+        stack.push(low, high);
+        while (!stack.isEmpty()) {
+            high = stack.pop();
+            low = stack.pop();
+            while (low < high) {
+                if (isStopped.get()) return;
+                int pi = partition(low, high);
+                if (pi - low < high - pi) {
+                    stack.push(pi + 1, high);
+                    high = pi - 1;
+                } else {
+                    stack.push(low, pi - 1);
+                    low = pi + 1;
+                }
+            }
+        }
+    }
+
+    private int partition(int low, int high) throws InterruptedException {
+        SortProfiler.PhaseEvent phase = beginPhase("partition", low, high);
+        int pivot = array[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (isStopped.get()) return high;
+            while (isPaused.get()) Thread.sleep(10);
+
+            highlight(j, high);
+            comparisons++;
+            updateStats();
+            pace();
+
+            if (array[j] <= pivot) {
+                i++;
+                swap(i, j);
+                swaps++;
+                updateStats();
+            }
+        }
+        swap(i + 1, high);
+        swaps++;
+        updateStats();
+        SortProfiler.endPhase(phase);
+        return i + 1;
+    }
+
+    private void heapSort() throws InterruptedException {
+        int n = array.length;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            heapify(n, i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            if (isStopped.get()) return;
+            while (isPaused.get()) Thread.sleep(10);
+
+            swap(0, i);
+            swaps++;
+            updateStats();
+            heapify(i, 0);
+            pace();
+        }
+    }
+
+    private void heapify(int n, int i) throws InterruptedException {
+        heapify(0, n, i);
+    }
+
+    private void heapify(int base, int n, int i) throws InterruptedException {
+        SortProfiler.PhaseEvent phase = beginPhase("heapify", base + i, base + n - 1);
+        siftDown(base, n, i);
+        SortProfiler.endPhase(phase);
+    }
+
+    // Sift down within the heap stored in array[base, base + n), as a loop
+    private void siftDown(int base, int n, int i) throws InterruptedException {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = 2 * i + 2;
+
+            if (left < n && array[base + left] > array[base + largest]) {
+                largest = left;
+            }
+            if (right < n && array[base + right] > array[base + largest]) {
+                largest = right;
+            }
+            if (largest == i) return;
+            if (isStopped.get()) return;
+            while (isPaused.get()) Thread.sleep(10);
+
+            highlight(base + i, base + largest);
+            comparisons++;
+            swap(base + i, base + largest);
+            swaps++;
+            updateStats();
+            pace();
+            i = largest;
+        }
+    }
+
+    // Selection algorithms: stop as soon as the requested position or range is in place
+
+    private void quickSelect(int target) throws InterruptedException {
+        int low = 0, high = array.length - 1;
+        while (low < high) {
+            int pi = partition(low, high);
+            if (isStopped.get() || pi == target) return;
+            if (target < pi) {
+                high = pi - 1;
+            } else {
+                low = pi + 1;
+            }
+        }
+    }
+
+    // Quickselect with median-of-three pivots that falls back to heap selection
+    // once it has partitioned 2 log n times without closing in on the target
+    private void introSelect(int target) throws InterruptedException {
+        int low = 0, high = array.length - 1;
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(array.length));
+        while (low < high) {
+            if (depthLimit-- == 0) {
+                heapSelect(low, high, target);
+                return;
+            }
+            medianOfThreeToEnd(low, high);
+            int pi = partition(low, high);
+            if (isStopped.get() || pi == target) return;
+            if (target < pi) {
+                high = pi - 1;
+            } else {
+                low = pi + 1;
+            }
+        }
+    }
+
+    // Move the median of array[low], array[mid], array[high] into array[high] as the pivot
+    private void medianOfThreeToEnd(int low, int high) throws InterruptedException {
+        int mid = (low + high) >>> 1;
+        comparisons += 2;
+        int a = array[low], b = array[mid], c = array[high];
+        int median;
+        if ((a <= b) == (b <= c)) {
+            median = mid;
+        } else {
+            comparisons++;
+            median = (b <= a) == (a <= c) ? low : high;
+        }
+        if (median != high) {
+            highlight(median, high);
+            swap(median, high);
+            swaps++;
+        }
+        updateStats();
+    }
+
+    // Build a max-heap over array[low, high] and pop until position target is final
+    private void heapSelect(int low, int high, int target) throws InterruptedException {
+        int n = high - low + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            heapify(low, n, i);
+        }
+        for (int i = n - 1; low + i >= target; i--) {
+            if (isStopped.get()) return;
+            while (isPaused.get()) Thread.sleep(10);
+
+            swap(low, low + i);
+            swaps++;
+            updateStats();
+            heapify(low, i, 0);
+            pace();
+        }
+    }
+
+    // Heap sort that stops after the K largest elements are extracted to the end
+    private void heapTopK(int k) throws InterruptedException {
+        int n = array.length;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            heapify(n, i);
+        }
+        for (int i = n - 1; i >= n - k; i--) {
+            if (isStopped.get()) return;
+            while (isPaused.get()) Thread.sleep(10);
+
+            swap(0, i);
+            swaps++;
+            updateStats();
+            heapify(i, 0);
+            pace();
+        }
+    }
+
+    // Quick sort that skips every partition lying entirely below position from,
+    // on the same smaller-side-first explicit stack as quickSort()
+    private void partialQuickSort(int low, int high, int from) throws InterruptedException {
+        IntStack stack = new IntStack(2, maxDepth(high - low + 1) + 1);
+        stack.push(low, high);
+        while (!stack.isEmpty()) {
+            high = stack.pop();
+            low = stack.pop();
+            while (low < high) {
+                if (isStopped.get()) return;
+                int pi = partition(low, high);
+                if (pi <= from) {
+                    low = pi + 1;
+                } else if (pi - low < high - pi) {
+                    stack.push(pi + 1, high);
+                    high = pi - 1;
+                } else {
+                    stack.push(low, pi - 1);
+                    low = pi + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Property-based fuzzing of every SortEngine algorithm and streaming buffer,
+// headless like SortBenchmark:
+//
+//   java SortFuzzer [--cases=500] [--seed=1] [--max-size=300] [--stress] [--stress-size=50000]
+//
+// Each case draws a size and an input pattern (duplicates, Integer.MIN_VALUE and
+// MAX_VALUE, sorted, reversed, organ pipe, ...) from its own seed. Every result is
+// compared against Arrays.sort, and the comparison/swap counters are checked for
+// consistency. A failing input is shrunk before it is printed together with the
+// seed that reproduces it. --stress also sorts large already-sorted inputs on a
+// thread with the default stack size, to catch recursion that overflows the stack,
+// and verifies what they produce.
+// Exits with status 1 if anything failed.
+public class SortFuzzer {
+    static final String[] ALGORITHMS = {"Bubble Sort", "Selection Sort", "Insertion Sort",
+                                        "Merge Sort", "Quick Sort", "Heap Sort",
+                                        "Quickselect (Median)", "Introselect (Median)",
+                                        "Heap Top-K", "Partial Quick Sort (Top-K)"};
+    static final String[] STREAMING_MODES = {"Stream: Binary Insertion", "Stream: Blocked Array", "Stream: LSM Runs"};
+    static final String[] PATTERNS = {"random", "duplicates", "extremes", "full-range", "sorted", "reversed",
+                                      "all-equal", "organ-pipe", "sawtooth"};
+
+    private static int failures = 0;
+
+    // Watches what the engine reports, the same stream of calls the visualizer sees
+    static class CheckingListener implements SortEngine.Listener {
+        private final int[] array;
+        private final int[] mirror;
+        int lastComparisons = 0, lastSwaps = 0;
+        String problem;
+
+        CheckingListener(int[] array) {
+            this.array = array;
+            this.mirror = array.clone();
+        }
+
+        @Override
+        public void highlight(int index1, int index2) {
+            if (index1 < -1 || index1 >= array.length || index2 < -1 || index2 >= array.length) {
+                fail("highlight(" + index1 + ", " + index2 + ") out of bounds");
+            }
+        }
+
+        @Override
+        public void statsChanged(int comparisons, int swaps) {
+            if (comparisons < lastComparisons || swaps < lastSwaps) {
+                fail("counters went backwards");
+            }
+            lastComparisons = comparisons;
+            lastSwaps = swaps;
+        }
+
+        @Override
+        public void pace() {
+        }
+
+        // Keeping a mirror up to date from these calls alone proves no write goes unreported
+        @Override
+        public void changed(int from, int to) {
+            if (from < 0 || to >= array.length || from > to) {
+                fail("changed(" + from + ", " + to + ") out of bounds");
+                return;
+            }
+            System.arraycopy(array, from, mirror, from, to - from + 1);
+        }
+
+        private void fail(String message) {
+            if (problem == null) problem = message;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cases = 500, maxSize = 300, stressSize = 50000;
+        long seed = 1;
+        boolean stress = false;
+
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--cases=")) cases = Integer.parseInt(value);
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--max-size=")) maxSize = Integer.parseInt(value);
+            else if (arg.startsWith("--stress-size=")) stressSize = Integer.parseInt(value);
+            else if (arg.equals("--stress")) stress = true;
+            else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+        }
+
+        for (int c = 0; c < cases; c++) {
+            long caseSeed = seed + c;
+            Random rand = new Random(caseSeed);
+            String pattern = PATTERNS[rand.nextInt(PATTERNS.length)];
+            int[] input = generate(pattern, rand.nextInt(maxSize + 1), rand);
+            int topK = 1 + rand.nextInt(Math.max(1, input.length));
+
+            for (String algorithm : ALGORITHMS) {
+                String problem = check(algorithm, input, topK);
+                if (problem != null) {
+                    report(algorithm, pattern, caseSeed, shrink(algorithm, input, topK), topK, problem);
+                }
+            }
+            for (String mode : STREAMING_MODES) {
+                String problem = checkStreaming(mode, input);
+                if (problem != null) {
+                    report(mode, pattern, caseSeed, input, topK, problem);
+                }
+            }
+        }
+        System.out.println(cases + " cases x " + (ALGORITHMS.length + STREAMING_MODES.length)
+                + " algorithms, " + failures + " failure(s)");
+
+        if (stress) {
+            for (String algorithm : new String[]{"Quick Sort", "Partial Quick Sort (Top-K)", "Quickselect (Median)",
+                                                 "Introselect (Median)", "Merge Sort", "Heap Sort", "Heap Top-K"}) {
+                stress(algorithm, stressSize);
+            }
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    static int[] generate(String pattern, int size, Random rand) {
+        int[] data = new int[size];
+        switch (pattern) {
+            case "random":
+                for (int i = 0; i < size; i++) data[i] = rand.nextInt(1000);
+                break;
+            case "duplicates":
+                for (int i = 0; i < size; i++) data[i] = rand.nextInt(4);
+                break;
+            case "extremes": {
+                int[] pool = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+                for (int i = 0; i < size; i++) data[i] = pool[rand.nextInt(pool.length)];
+                break;
+            }
+            case "full-range":
+                for (int i = 0; i < size; i++) data[i] = rand.nextInt();
+                break;
+            case "sorted":
+                for (int i = 0; i < size; i++) data[i] = rand.nextInt(1000);
+                Arrays.sort(data);
+                break;
+            case "reversed":
+                for (int i = 0; i < size; i++) data[i] = size - i;
+                break;
+            case "all-equal":
+                Arrays.fill(data, rand.nextInt());
+                break;
+            case "organ-pipe":
+                for (int i = 0; i < size; i++) data[i] = Math.min(i, size - 1 - i);
+                break;
+            case "sawtooth": {
+                int period = 1 + rand.nextInt(16);
+                for (int i = 0; i < size; i++) data[i] = i % period;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown pattern: " + pattern);
+        }
+        return data;
+    }
+
+    // Returns a description of the first broken property, or null if all hold
+    static String check(String algorithm, int[] input, int topK) {
+        int n = input.length;
+        int[] output = input.clone();
+        int[] tags = SortVerifier.claimsStable(algorithm) ? SortVerifier.identityTags(n) : null;
+        CheckingListener listener = new CheckingListener(output);
+        SortEngine engine = new SortEngine(output, new AtomicBoolean(false), new AtomicBoolean(false), listener);
+        engine.setTopK(topK);
+        engine.setTags(tags);
+        try {
+            engine.run(algorithm);
+        } catch (StackOverflowError e) {
+            return "StackOverflowError";
+        } catch (Exception e) {
+            return "threw " + e;
+        }
+        if (listener.problem != null) return listener.problem;
+
+        // Results against Arrays.sort
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+        int k = Math.min(topK, n);
+        switch (algorithm) {
+            case "Quickselect (Median)":
+            case "Introselect (Median)":
+                if (n > 0 && output[n / 2] != expected[n / 2]) return "wrong median " + output[n / 2];
+                break;
+            case "Heap Top-K":
+            case "Partial Quick Sort (Top-K)":
+                if (!Arrays.equals(Arrays.copyOfRange(output, n - k, n), Arrays.copyOfRange(expected, n - k, n))) {
+                    return "top " + k + " differ from Arrays.sort";
+                }
+                break;
+            default:
+                if (!Arrays.equals(output, expected)) return "differs from Arrays.sort";
+        }
+        int[] sorted = output.clone();
+        Arrays.sort(sorted);
+        if (!Arrays.equals(sorted, expected)) return "not a permutation of the input";
+
+        SortVerifier.Report report = SortVerifier.verify(algorithm, input, output, tags, topK);
+        if (!report.passed()) return "SortVerifier: " + report.summary();
+        if (!Arrays.equals(listener.mirror, output)) return "a write was not reported through changed()";
+
+        // Counter consistency
+        int comparisons = engine.getComparisons(), swaps = engine.getSwaps();
+        if (comparisons != listener.lastComparisons || swaps != listener.lastSwaps) {
+            return "counters " + comparisons + "/" + swaps + " but listener last saw "
+                    + listener.lastComparisons + "/" + listener.lastSwaps;
+        }
+        long pairs = (long) n * (n - 1) / 2;
+        switch (algorithm) {
+            case "Bubble Sort":
+                if (comparisons != pairs) return "bubble sort made " + comparisons + " comparisons, expected " + pairs;
+                if (swaps != inversions(input)) return "bubble sort made " + swaps + " swaps, expected one per inversion";
+                break;
+            case "Selection Sort":
+                if (comparisons != pairs) return "selection sort made " + comparisons + " comparisons, expected " + pairs;
+                if (swaps > Math.max(0, n - 1)) return "selection sort made " + swaps + " swaps for " + n + " elements";
+                break;
+            case "Insertion Sort":
+                if (swaps != inversions(input)) return "insertion sort made " + swaps + " shifts, expected one per inversion";
+                break;
+        }
+
+        // The explicit stacks stay logarithmic whatever the input: quick sort holds at
+        // most floor(log2 n) + 1 ranges, merge sort two frames per level plus one
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(1, n));
+        int depthBound;
+        switch (algorithm) {
+            case "Quick Sort":
+            case "Partial Quick Sort (Top-K)":
+                depthBound = levels;
+                break;
+            case "Merge Sort":
+                depthBound = 2 * levels + 1;
+                break;
+            default:
+                depthBound = 0;
+        }
+        if (engine.getPeakStackDepth() > depthBound) {
+            return "peak stack depth " + engine.getPeakStackDepth() + " above " + depthBound;
+        }
+
+        // Same input, same work
+        int[] again = input.clone();
+        SortEngine repeat = new SortEngine(again);
+        repeat.setTopK(topK);
+        try {
+            repeat.run(algorithm);
+        } catch (InterruptedException e) {
+            return "interrupted";
+        }
+        if (repeat.getComparisons() != comparisons || repeat.getSwaps() != swaps) {
+            return "counters differ between identical runs";
+        }
+        return null;
+    }
+
+    static String checkStreaming(String mode, int[] input) {
+        StreamingBuffer buffer = StreamingBuffer.create(mode);
+        int half = input.length / 2;
+        int[] seed = Arrays.copyOf(input, half);
+        Arrays.sort(seed);
+        buffer.bulkLoad(seed);
+        for (int i = half; i < input.length; i++) {
+            buffer.insert(input[i]);
+            int[] view = buffer.toArray();
+            if (view.length != i + 1) return "size " + view.length + " after " + (i + 1) + " elements";
+            if (view[buffer.lastInsertIndex()] != input[i]) return "lastInsertIndex() does not point at the inserted value";
+        }
+        buffer.compact();
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+        if (!Arrays.equals(buffer.toArray(), expected)) return "differs from Arrays.sort after compaction";
+        if (buffer.getComparisons() < 0 || buffer.getMoves() < 0) return "negative counters";
+        return null;
+    }
+
+    // Greedily drop chunks, then single elements, while the property still fails
+    static int[] shrink(String algorithm, int[] input, int topK) {
+        int[] current = input;
+        for (int chunk = Math.max(1, current.length / 2); chunk >= 1; chunk /= 2) {
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                for (int from = 0; from + chunk <= current.length; from += chunk) {
+                    int[] candidate = new int[current.length - chunk];
+                    System.arraycopy(current, 0, candidate, 0, from);
+                    System.arraycopy(current, from + chunk, candidate, from, current.length - from - chunk);
+                    if (check(algorithm, candidate, topK) != null) {
+                        current = candidate;
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    // Sorted input drives the last-element pivot to its worst case: n - 1 levels of
+    // recursion. Surviving is not enough, the output must also check out
+    static void stress(String algorithm, int size) throws InterruptedException {
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) data[i] = i;
+        int[] input = data.clone();
+        int topK = 10;
+        String[] problem = new String[1];
+        int[] peakDepth = new int[1];
+        long begin = System.nanoTime();
+        Thread thread = new Thread(() -> {
+            try {
+                SortEngine engine = new SortEngine(data);
+                engine.setTopK(topK);
+                engine.run(algorithm);
+                peakDepth[0] = engine.getPeakStackDepth();
+                SortVerifier.Report report = SortVerifier.verify(algorithm, input, data, null, topK);
+                if (!report.passed()) problem[0] = "wrong result: " + report.summary();
+            } catch (StackOverflowError e) {
+                problem[0] = "StackOverflowError";
+            } catch (Exception e) {
+                problem[0] = "threw " + e;
+            }
+        }, "stress-" + algorithm);
+        thread.start();
+        thread.join();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        if (problem[0] != null) {
+            failures++;
+            System.out.printf("STRESS FAIL %-28s sorted n=%d: %s after %.1f s%n", algorithm, size, problem[0], seconds);
+        } else {
+            System.out.printf("stress ok   %-28s sorted n=%d in %.1f s, peak stack depth %d frames%n",
+                    algorithm, size, seconds, peakDepth[0]);
+        }
+    }
+
+    static long inversions(int[] input) {
+        int[] data = input.clone();
+        return countInversions(data, new int[data.length], 0, data.length);
+    }
+
+    private static long countInversions(int[] data, int[] buffer, int from, int to) {
+        if (to - from < 2) return 0;
+        int mid = (from + to) >>> 1;
+        long count = countInversions(data, buffer, from, mid) + countInversions(data, buffer, mid, to);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (data[i] <= data[j]) {
+                buffer[k++] = data[i++];
+            } else {
+                count += mid - i;
+                buffer[k++] = data[j++];
+            }
+        }
+        while (i < mid) buffer[k++] = data[i++];
+        while (j < to) buffer[k++] = data[j++];
+        System.arraycopy(buffer, from, data, from, to - from);
+        return count;
+    }
+
+    private static void report(String algorithm, String pattern, long seed, int[] input, int topK, String problem) {
+        failures++;
+        System.out.println("FAIL " + algorithm + " [" + pattern + ", seed " + seed + ", k " + topK + "]: " + problem);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < Math.min(input.length, 40); i++) values.add(Integer.toString(input[i]));
+        System.out.println("     input (" + input.length + "): " + String.join(", ", values)
+                + (input.length > 40 ? ", ..." : ""));
+    }
+}
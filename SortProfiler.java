@@ -0,0 +1,163 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Splits the wall time of one run into computing, pacing sleeps, pauses and
+// painting, and emits Flight Recorder events for each of them. Record with
+//   java -XX:StartFlightRecording=filename=sort.jfr SortingAlgorithmVisualizer
+public class SortProfiler {
+    @Name("sortvis.Phase")
+    @Label("Algorithm Phase")
+    @Category("Sorting Visualizer")
+    public static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("From Index")
+        int from;
+        @Label("To Index")
+        int to;
+    }
+
+    @Name("sortvis.PacingSleep")
+    @Label("Pacing Sleep")
+    @Category("Sorting Visualizer")
+    public static class SleepEvent extends Event {
+        @Label("Requested Millis")
+        int requestedMillis;
+    }
+
+    @Name("sortvis.Paint")
+    @Label("Paint")
+    @Category("Sorting Visualizer")
+    public static class PaintEvent extends Event {
+        @Label("Bars")
+        int bars;
+        @Label("Snapshot Version")
+        long version;
+    }
+
+    private static final EventType PHASE_TYPE = EventType.getEventType(PhaseEvent.class);
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = 0;
+    private final AtomicLong sleepNanos = new AtomicLong();
+    private final AtomicLong pausedNanos = new AtomicLong();
+    private long pausedSince = 0; // EDT only
+
+    // Paint side, EDT only
+    private long paintNanos = 0, edtWaitNanos = 0;
+    private int framesPainted = 0;
+    private long firstVersion = -1, lastVersion = -1;
+
+    // Returns null unless a recording has phase events enabled, so the sorting
+    // hot path allocates nothing when Flight Recorder is off
+    public static PhaseEvent beginPhase(String phase, int from, int to) {
+        if (!PHASE_TYPE.isEnabled()) return null;
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase;
+        event.from = from;
+        event.to = to;
+        event.begin();
+        return event;
+    }
+
+    public static void endPhase(PhaseEvent event) {
+        if (event != null && event.shouldCommit()) event.commit();
+    }
+
+    public void sleep(int millis) throws InterruptedException {
+        SleepEvent event = new SleepEvent();
+        event.requestedMillis = millis;
+        event.begin();
+        long begin = System.nanoTime();
+        try {
+            Thread.sleep(millis);
+        } finally {
+            sleepNanos.addAndGet(System.nanoTime() - begin);
+            event.commit();
+        }
+    }
+
+    public void setPaused(boolean paused) {
+        if (paused) {
+            pausedSince = System.nanoTime();
+        } else if (pausedSince != 0) {
+            pausedNanos.addAndGet(System.nanoTime() - pausedSince);
+            pausedSince = 0;
+        }
+    }
+
+    // Only the first call counts, so the run can end before any follow-up work
+    public void finish() {
+        if (endNanos == 0) endNanos = System.nanoTime();
+    }
+
+    // Called by the paint code with the snapshot it is about to draw. Returns null
+    // once the run has finished: later repaints are not part of its profile
+    public PaintEvent beginPaint(SnapshotExchange.Snapshot snapshot) {
+        if (endNanos != 0) return null;
+        long now = System.nanoTime();
+        if (snapshot.version != lastVersion) {
+            if (firstVersion < 0) firstVersion = snapshot.version;
+            lastVersion = snapshot.version;
+            framesPainted++;
+            edtWaitNanos += now - snapshot.publishedAt;
+        }
+        PaintEvent event = new PaintEvent();
+        event.bars = snapshot.values.length;
+        event.version = snapshot.version;
+        event.begin();
+        return event;
+    }
+
+    public void endPaint(PaintEvent event, long paintStartNanos) {
+        if (event == null) return;
+        paintNanos += System.nanoTime() - paintStartNanos;
+        event.commit();
+    }
+
+    public double elapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1e6;
+    }
+
+    public double sleepMillis() {
+        return sleepNanos.get() / 1e6;
+    }
+
+    public double pausedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        long current = pausedSince != 0 ? end - pausedSince : 0;
+        return (pausedNanos.get() + current) / 1e6;
+    }
+
+    // Everything on the sorting thread that is neither a pacing sleep nor a pause
+    public double computeMillis() {
+        return Math.max(0, elapsedMillis() - sleepMillis() - pausedMillis());
+    }
+
+    public double paintMillis() {
+        return paintNanos / 1e6;
+    }
+
+    public int framesPainted() {
+        return framesPainted;
+    }
+
+    public long framesPublished() {
+        return firstVersion < 0 ? 0 : lastVersion - firstVersion + 1;
+    }
+
+    // Average time a published snapshot waited before the EDT painted it
+    public double edtWaitMillisPerFrame() {
+        return framesPainted == 0 ? 0 : edtWaitNanos / 1e6 / framesPainted;
+    }
+
+    public double paintMillisPerFrame() {
+        return framesPainted == 0 ? 0 : paintMillis() / framesPainted;
+    }
+}
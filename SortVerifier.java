@@ -0,0 +1,143 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+// Checks that a run left behind what its algorithm promises: a sorted permutation
+// of the input (or, for the selection modes, the median or top K in place), and
+// for the algorithms that claim it, that equal keys kept their original order.
+// Every check is a single O(n) pass that goes parallel on large arrays.
+public class SortVerifier {
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    public static class Report {
+        private final boolean passed;
+        private final String summary;
+
+        Report(boolean passed, String summary) {
+            this.passed = passed;
+            this.summary = summary;
+        }
+
+        public boolean passed() {
+            return passed;
+        }
+
+        public String summary() {
+            return summary;
+        }
+    }
+
+    public static boolean claimsStable(String algorithm) {
+        switch (algorithm) {
+            case "Bubble Sort":
+            case "Insertion Sort":
+            case "Merge Sort":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static int[] identityTags(int n) {
+        int[] tags = new int[n];
+        for (int i = 0; i < n; i++) {
+            tags[i] = i;
+        }
+        return tags;
+    }
+
+    public static Report verify(String algorithm, int[] input, int[] output, int[] tags, int topK) {
+        return verify(algorithm, multisetHash(input), input.length, output, tags, topK);
+    }
+
+    // tags may be null to skip the stability check
+    public static Report verify(String algorithm, long inputHash, int inputLength,
+                                int[] output, int[] tags, int topK) {
+        int n = output.length;
+        if (n != inputLength || multisetHash(output) != inputHash) {
+            return new Report(false, "Not a permutation of the input");
+        }
+
+        String promise;
+        int from = 0;
+        switch (algorithm) {
+            case "Quickselect (Median)":
+            case "Introselect (Median)": {
+                int target = n / 2;
+                if (n > 0 && (max(output, 0, target) > output[target] || min(output, target + 1, n) < output[target])) {
+                    return new Report(false, "Median not in place at index " + target);
+                }
+                return new Report(true, "Verified: median in place");
+            }
+            case "Heap Top-K":
+            case "Partial Quick Sort (Top-K)": {
+                int k = Math.max(1, Math.min(topK, n));
+                from = n - k;
+                if (n > 0 && max(output, 0, from) > output[from]) {
+                    return new Report(false, "Top " + k + " not separated from the rest");
+                }
+                promise = "top " + k + " in place";
+                break;
+            }
+            default:
+                promise = "sorted permutation of the input";
+        }
+
+        int inversion = firstInversion(output, from, n);
+        if (inversion >= 0) {
+            return new Report(false, "Not sorted: a[" + inversion + "] = " + output[inversion]
+                    + " > a[" + (inversion + 1) + "] = " + output[inversion + 1]);
+        }
+
+        if (tags != null && claimsStable(algorithm)) {
+            int broken = firstStabilityBreak(output, tags);
+            if (broken >= 0) {
+                return new Report(false, "Not stable: equal keys at " + broken + " and " + (broken + 1)
+                        + " changed order");
+            }
+            promise += ", stable";
+        }
+        return new Report(true, "Verified: " + promise);
+    }
+
+    // Order-independent hash: a sum of well-mixed element hashes, so any reordering matches
+    public static long multisetHash(int[] values) {
+        IntStream stream = IntStream.of(values);
+        if (values.length >= PARALLEL_THRESHOLD) stream = stream.parallel();
+        return stream.mapToLong(SortVerifier::mix).sum();
+    }
+
+    // SplitMix64 finalizer
+    public static long mix(int value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static int firstInversion(int[] values, int from, int to) {
+        return firstMatch(from, to - 1, i -> values[i] > values[i + 1]);
+    }
+
+    static int firstStabilityBreak(int[] values, int[] tags) {
+        return firstMatch(0, values.length - 1, i -> values[i] == values[i + 1] && tags[i] > tags[i + 1]);
+    }
+
+    private static int firstMatch(int from, int to, IntPredicate test) {
+        IntStream range = IntStream.range(from, Math.max(from, to));
+        if (to - from >= PARALLEL_THRESHOLD) range = range.parallel();
+        return range.filter(test).findFirst().orElse(-1);
+    }
+
+    private static int max(int[] values, int from, int to) {
+        IntStream range = Arrays.stream(values, from, Math.max(from, to));
+        if (to - from >= PARALLEL_THRESHOLD) range = range.parallel();
+        return range.max().orElse(Integer.MIN_VALUE);
+    }
+
+    private static int min(int[] values, int from, int to) {
+        IntStream range = Arrays.stream(values, from, Math.max(from, to));
+        if (to - from >= PARALLEL_THRESHOLD) range = range.parallel();
+        return range.min().orElse(Integer.MAX_VALUE);
+    }
+}
@@ -8,20 +8,32 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SortingAlgorithmVisualizer extends JFrame {
     private int[] array;
     private JPanel drawPanel;
-    private JSlider speedSlider, sizeSlider;
+    private JSlider speedSlider, sizeSlider, streamRateSlider;
     private JComboBox<String> algorithmComboBox;
+    private JSpinner topKSpinner, insertCountSpinner;
     private JButton startButton, pauseButton, stopButton, generateButton;
     private AtomicBoolean isPaused, isStopped;
     private Thread sortingThread;
     private JLabel statusLabel, comparisonsLabel, swapsLabel;
     private int comparisons = 0, swaps = 0;
     private int[] highlightedIndices = new int[2]; // For highlighting compared elements
+    private final SnapshotExchange snapshots = new SnapshotExchange(); // What drawArray() paints
     private boolean showNumbers = false;
     private JCheckBox showNumbersCheckbox;
-    private long startTime;
+    private boolean showProfile = false;
+    private JCheckBox showProfileCheckbox;
+    private volatile SortProfiler profiler;
+    private StreamingBuffer streamBuffer;
+    private LatencyHistogram insertLatencies;
+    private int insertCount = 0;
+    private volatile StreamStats liveStream; // what the streaming overlay draws
+    private String baselineAlgorithm;
+    private int baselineComparisons, baselineSwaps;
+    private int peakStackDepth;
+    private volatile SortVerifier.Report verification;
 
     // Enhanced color scheme
-    private static final Color BACKGROUND_COLOR = new Color(20, 25, 35);
+    static final Color BACKGROUND_COLOR = new Color(20, 25, 35);
     private static final Color PANEL_COLOR = new Color(35, 40, 55);
     private static final Color ACCENT_COLOR = new Color(100, 200, 255);
     private static final Color SUCCESS_COLOR = new Color(46, 204, 113);
@@ -29,6 +41,30 @@ public class SortingAlgorithmVisualizer extends JFrame {
     private static final Color TEXT_COLOR = new Color(240, 245, 255);
     private static final Color HIGHLIGHT_COLOR = new Color(255, 193, 7);
 
+    private static final int COST_POINTS = 120; // points kept for the amortized cost curve
+    private static final long STREAM_FRAME_NANOS = 33_000_000L; // bar view refresh while streaming
+
+    // Snapshot of the streaming statistics, rebuilt by the sorting thread after every insert
+    private static final class StreamStats {
+        final int inserts, totalInserts, size;
+        final long p50, p90, p99, max;
+        final double movesPerInsert;
+        final double[] costHistory; // amortized moves per insert, oldest first, evenly spaced
+
+        StreamStats(int inserts, int totalInserts, int size, LatencyHistogram latencies,
+                    double movesPerInsert, double[] costHistory) {
+            this.inserts = inserts;
+            this.totalInserts = totalInserts;
+            this.size = size;
+            this.p50 = latencies.percentile(50);
+            this.p90 = latencies.percentile(90);
+            this.p99 = latencies.percentile(99);
+            this.max = latencies.max();
+            this.movesPerInsert = movesPerInsert;
+            this.costHistory = costHistory;
+        }
+    }
+
     public SortingAlgorithmVisualizer() {
         initializeUI();
         setupEventListeners();
@@ -50,7 +86,24 @@ public class SortingAlgorithmVisualizer extends JFrame {
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                drawArray(g2d);
+                SnapshotExchange.Snapshot snapshot = snapshots.acquire();
+                SortProfiler currentProfiler = profiler;
+                if (currentProfiler == null) {
+                    drawArray(g2d, snapshot);
+                    return;
+                }
+
+                long paintStart = System.nanoTime();
+                SortProfiler.PaintEvent paintEvent = currentProfiler.beginPaint(snapshot);
+                drawArray(g2d, snapshot);
+                currentProfiler.endPaint(paintEvent, paintStart);
+                if (showProfile) {
+                    drawProfileOverlay(g2d, currentProfiler);
+                }
+                StreamStats stream = liveStream;
+                if (stream != null) {
+                    drawStreamOverlay(g2d, stream);
+                }
             }
         };
         drawPanel.setBackground(BACKGROUND_COLOR);
@@ -119,15 +172,40 @@ public class SortingAlgorithmVisualizer extends JFrame {
         speedPanel.add(speedSlider);
         topControls.add(speedPanel);
 
+        // Streaming insert rate controls
+        JPanel streamPanel = createControlGroup("Stream Rate (inserts/s)");
+        streamRateSlider = new JSlider(1, 200, 50);
+        styleSlider(streamRateSlider);
+        streamPanel.add(streamRateSlider);
+        topControls.add(streamPanel);
+
+        // How many elements a streaming run feeds in
+        JPanel insertCountPanel = createControlGroup("Inserts");
+        insertCountSpinner = new JSpinner(new SpinnerNumberModel(2000, 10, 1000000, 100));
+        insertCountSpinner.setPreferredSize(new Dimension(90, 30));
+        insertCountSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        insertCountPanel.add(insertCountSpinner);
+        topControls.add(insertCountPanel);
+
         // Algorithm selection
         JPanel algorithmPanel = createControlGroup("Algorithm");
         String[] algorithms = {"Bubble Sort", "Selection Sort", "Insertion Sort", 
-                              "Merge Sort", "Quick Sort", "Heap Sort"};
+                              "Merge Sort", "Quick Sort", "Heap Sort",
+                              "Quickselect (Median)", "Introselect (Median)", "Heap Top-K", "Partial Quick Sort (Top-K)",
+                              "Stream: Binary Insertion", "Stream: Blocked Array", "Stream: LSM Runs"};
         algorithmComboBox = new JComboBox<>(algorithms);
         styleComboBox(algorithmComboBox);
         algorithmPanel.add(algorithmComboBox);
         topControls.add(algorithmPanel);
 
+        // K for the top-K selection modes
+        JPanel topKPanel = createControlGroup("Top K");
+        topKSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 200, 1));
+        topKSpinner.setPreferredSize(new Dimension(80, 30));
+        topKSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        topKPanel.add(topKSpinner);
+        topControls.add(topKPanel);
+
         mainPanel.add(topControls, BorderLayout.NORTH);
 
         // Bottom controls
@@ -148,12 +226,19 @@ public class SortingAlgorithmVisualizer extends JFrame {
         showNumbersCheckbox.setBackground(PANEL_COLOR);
         showNumbersCheckbox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
 
+        // Profiling overlay checkbox
+        showProfileCheckbox = new JCheckBox("Show Profile");
+        showProfileCheckbox.setForeground(TEXT_COLOR);
+        showProfileCheckbox.setBackground(PANEL_COLOR);
+        showProfileCheckbox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+
         bottomControls.add(generateButton);
         bottomControls.add(startButton);
         bottomControls.add(pauseButton);
         bottomControls.add(stopButton);
         bottomControls.add(Box.createHorizontalStrut(20));
         bottomControls.add(showNumbersCheckbox);
+        bottomControls.add(showProfileCheckbox);
 
         mainPanel.add(bottomControls, BorderLayout.CENTER);
         return mainPanel;
@@ -252,6 +337,11 @@ public class SortingAlgorithmVisualizer extends JFrame {
             drawPanel.repaint();
         });
 
+        showProfileCheckbox.addActionListener(e -> {
+            showProfile = showProfileCheckbox.isSelected();
+            drawPanel.repaint();
+        });
+
         startButton.addActionListener(e -> startSorting());
         pauseButton.addActionListener(e -> pauseSorting());
         stopButton.addActionListener(e -> stopSorting());
@@ -265,6 +355,8 @@ public class SortingAlgorithmVisualizer extends JFrame {
             array[i] = rand.nextInt(500) + 1;
         }
         Arrays.fill(highlightedIndices, -1);
+        liveStream = null;
+        publishSnapshot();
         drawPanel.repaint();
         statusLabel.setText("Array generated with " + size + " elements");
         statusLabel.setForeground(SUCCESS_COLOR);
@@ -277,19 +369,32 @@ public class SortingAlgorithmVisualizer extends JFrame {
     }
 
     private void updateStats() {
+        int currentComparisons = comparisons, currentSwaps = swaps;
         SwingUtilities.invokeLater(() -> {
-            comparisonsLabel.setText("Comparisons: " + comparisons);
-            swapsLabel.setText("Swaps: " + swaps);
+            comparisonsLabel.setText("Comparisons: " + currentComparisons);
+            swapsLabel.setText("Swaps: " + currentSwaps);
         });
     }
 
-    private void drawArray(Graphics2D g2d) {
-        if (array == null) return;
+    // Only called by the thread that currently owns the array
+    private void publishSnapshot() {
+        snapshots.publish(array, highlightedIndices[0], highlightedIndices[1], comparisons, swaps);
+    }
+
+    private void drawArray(Graphics2D g2d, SnapshotExchange.Snapshot snapshot) {
+        drawBars(g2d, snapshot.values, snapshot.highlight1, snapshot.highlight2,
+                 drawPanel.getWidth(), drawPanel.getHeight(), showNumbers);
+    }
 
-        int panelWidth = drawPanel.getWidth() - 40;
-        int panelHeight = drawPanel.getHeight() - 40;
-        double barWidth = (double) panelWidth / array.length;
-        int maxValue = Arrays.stream(array).max().orElse(1);
+    // Static so FrameExporter can paint the same bars into offscreen images
+    static void drawBars(Graphics2D g2d, int[] values, int highlight1, int highlight2,
+                         int width, int height, boolean showNumbers) {
+        if (values.length == 0) return;
+
+        int panelWidth = width - 40;
+        int panelHeight = height - 40;
+        double barWidth = (double) panelWidth / values.length;
+        int maxValue = Arrays.stream(values).max().orElse(1);
 
         // Draw background grid
         g2d.setColor(new Color(50, 55, 70));
@@ -300,17 +405,17 @@ public class SortingAlgorithmVisualizer extends JFrame {
         }
 
         // Draw bars with enhanced styling
-        for (int i = 0; i < array.length; i++) {
-            int barHeight = (int) (((double) array[i] / maxValue) * panelHeight);
+        for (int i = 0; i < values.length; i++) {
+            int barHeight = (int) (((double) values[i] / maxValue) * panelHeight);
             int x = (int) (20 + i * barWidth);
             int y = panelHeight + 20 - barHeight;
 
             // Color selection with gradient effect
             Color barColor;
-            if (i == highlightedIndices[0] || i == highlightedIndices[1]) {
+            if (i == highlight1 || i == highlight2) {
                 barColor = HIGHLIGHT_COLOR;
             } else {
-                float hue = (float) array[i] / maxValue * 0.8f;
+                float hue = (float) values[i] / maxValue * 0.8f;
                 barColor = Color.getHSBColor(hue, 0.8f, 0.9f);
             }
 
@@ -336,7 +441,7 @@ public class SortingAlgorithmVisualizer extends JFrame {
             if (showNumbers && barWidth > 15) {
                 g2d.setColor(TEXT_COLOR);
                 g2d.setFont(new Font("Segoe UI", Font.BOLD, Math.max(8, (int)(barWidth/4))));
-                String value = String.valueOf(array[i]);
+                String value = String.valueOf(values[i]);
                 FontMetrics fm = g2d.getFontMetrics();
                 int textX = x + (int)(barWidth - fm.stringWidth(value)) / 2;
                 int textY = y - 5;
@@ -346,18 +451,119 @@ public class SortingAlgorithmVisualizer extends JFrame {
         }
     }
 
+    // Where the run's wall time went, drawn over the top-right corner of the bars
+    private void drawProfileOverlay(Graphics2D g2d, SortProfiler profile) {
+        double elapsed = Math.max(1e-3, profile.elapsedMillis());
+        String[] lines = {
+            String.format("Compute   %8.1f ms  %5.1f%%", profile.computeMillis(), profile.computeMillis() * 100 / elapsed),
+            String.format("Sleep     %8.1f ms  %5.1f%%", profile.sleepMillis(), profile.sleepMillis() * 100 / elapsed),
+            String.format("Paused    %8.1f ms  %5.1f%%", profile.pausedMillis(), profile.pausedMillis() * 100 / elapsed),
+            String.format("Paint     %8.1f ms  %5.1f%%", profile.paintMillis(), profile.paintMillis() * 100 / elapsed),
+            String.format("Paint/frame   %6.2f ms", profile.paintMillisPerFrame()),
+            String.format("EDT wait/frame %5.2f ms", profile.edtWaitMillisPerFrame()),
+            String.format("Frames %d painted / %d published", profile.framesPainted(), profile.framesPublished())
+        };
+
+        g2d.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        FontMetrics fm = g2d.getFontMetrics();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        int lineHeight = fm.getHeight();
+        int boxWidth = width + 20;
+        int boxHeight = lineHeight * lines.length + 16;
+        int x = drawPanel.getWidth() - boxWidth - 30;
+        int y = 30;
+
+        g2d.setColor(new Color(PANEL_COLOR.getRed(), PANEL_COLOR.getGreen(), PANEL_COLOR.getBlue(), 220));
+        g2d.fill(new RoundRectangle2D.Float(x, y, boxWidth, boxHeight, 8, 8));
+        g2d.setColor(ACCENT_COLOR);
+        g2d.setStroke(new BasicStroke(1));
+        g2d.draw(new RoundRectangle2D.Float(x, y, boxWidth, boxHeight, 8, 8));
+        g2d.setColor(TEXT_COLOR);
+        for (int i = 0; i < lines.length; i++) {
+            g2d.drawString(lines[i], x + 10, y + 8 + fm.getAscent() + i * lineHeight);
+        }
+    }
+
+    // Insert latency percentiles and the amortized cost curve, drawn over the top-left corner
+    private void drawStreamOverlay(Graphics2D g2d, StreamStats stats) {
+        String[] lines = {
+            String.format("Inserts %d / %d, size %d", stats.inserts, stats.totalInserts, stats.size),
+            String.format("p50 insert  %9.2f \u00b5s", stats.p50 / 1000.0),
+            String.format("p90 insert  %9.2f \u00b5s", stats.p90 / 1000.0),
+            String.format("p99 insert  %9.2f \u00b5s", stats.p99 / 1000.0),
+            String.format("max insert  %9.2f \u00b5s", stats.max / 1000.0),
+            String.format("Moves/insert %8.2f", stats.movesPerInsert),
+            "Moves/insert as it grows:"
+        };
+
+        g2d.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        FontMetrics fm = g2d.getFontMetrics();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        int lineHeight = fm.getHeight();
+        int chartHeight = 50;
+        int boxWidth = width + 20;
+        int boxHeight = lineHeight * lines.length + chartHeight + 24;
+        int x = 30;
+        int y = 30;
+
+        g2d.setColor(new Color(PANEL_COLOR.getRed(), PANEL_COLOR.getGreen(), PANEL_COLOR.getBlue(), 220));
+        g2d.fill(new RoundRectangle2D.Float(x, y, boxWidth, boxHeight, 8, 8));
+        g2d.setColor(ACCENT_COLOR);
+        g2d.setStroke(new BasicStroke(1));
+        g2d.draw(new RoundRectangle2D.Float(x, y, boxWidth, boxHeight, 8, 8));
+        g2d.setColor(TEXT_COLOR);
+        for (int i = 0; i < lines.length; i++) {
+            g2d.drawString(lines[i], x + 10, y + 8 + fm.getAscent() + i * lineHeight);
+        }
+
+        // Amortized cost curve, scaled to its own peak
+        double[] history = stats.costHistory;
+        if (history.length == 0) return;
+        double peak = 1e-9;
+        for (double cost : history) {
+            peak = Math.max(peak, cost);
+        }
+        int chartLeft = x + 10;
+        int chartWidth = boxWidth - 20;
+        int chartBottom = y + 8 + lines.length * lineHeight + 8 + chartHeight;
+        g2d.setColor(HIGHLIGHT_COLOR);
+        g2d.setStroke(new BasicStroke(1.5f));
+        int previousX = chartLeft;
+        int previousY = chartBottom - (int) (history[0] / peak * chartHeight);
+        for (int i = 1; i < history.length; i++) {
+            int pointX = chartLeft + (int) ((long) i * chartWidth / Math.max(1, history.length - 1));
+            int pointY = chartBottom - (int) (history[i] / peak * chartHeight);
+            g2d.drawLine(previousX, previousY, pointX, pointY);
+            previousX = pointX;
+            previousY = pointY;
+        }
+        g2d.fillOval(previousX - 2, previousY - 2, 4, 4);
+    }
+
     private void startSorting() {
         if (sortingThread != null && sortingThread.isAlive()) return;
 
         resetStats();
+        streamBuffer = null;
+        liveStream = null;
+        baselineAlgorithm = null;
+        verification = null;
+        peakStackDepth = 0;
         isPaused.set(false);
         isStopped.set(false);
         startButton.setEnabled(false);
         pauseButton.setEnabled(true);
         stopButton.setEnabled(true);
         generateButton.setEnabled(false);
+        sizeSlider.setEnabled(false);
         
-        startTime = System.currentTimeMillis();
+        profiler = new SortProfiler();
         statusLabel.setText("Sorting in progress...");
         statusLabel.setForeground(HIGHLIGHT_COLOR);
 
@@ -365,36 +571,42 @@ public class SortingAlgorithmVisualizer extends JFrame {
             try {
                 String selectedAlgorithm = (String) algorithmComboBox.getSelectedItem();
                 switch (selectedAlgorithm) {
-                    case "Bubble Sort": bubbleSort(); break;
-                    case "Selection Sort": selectionSort(); break;
-                    case "Insertion Sort": insertionSort(); break;
-                    case "Merge Sort": mergeSort(0, array.length - 1); break;
-                    case "Quick Sort": quickSort(0, array.length - 1); break;
-                    case "Heap Sort": heapSort(); break;
+                    case "Stream: Binary Insertion":
+                    case "Stream: Blocked Array":
+                    case "Stream: LSM Runs": streamInserts(selectedAlgorithm); break;
+                    default: runEngine(selectedAlgorithm); break;
                 }
                 
+                profiler.finish();
                 if (!isStopped.get()) {
-                    long endTime = System.currentTimeMillis();
-                    double duration = (endTime - startTime) / 1000.0;
+                    double duration = profiler.elapsedMillis() / 1000.0;
+                    SortVerifier.Report report = verification;
                     SwingUtilities.invokeLater(() -> {
-                        statusLabel.setText("Sorting completed in " + String.format("%.2f", duration) + " seconds");
-                        statusLabel.setForeground(SUCCESS_COLOR);
+                        statusLabel.setText("Sorting completed in " + String.format("%.2f", duration) + " seconds"
+                                + (report != null ? " - " + report.summary() : ""));
+                        statusLabel.setForeground(report == null || report.passed() ? SUCCESS_COLOR : DANGER_COLOR);
                         showComplexityDialog();
                     });
+                } else {
+                    showStoppedVerification();
                 }
             } catch (InterruptedException e) {
+                SortVerifier.Report report = verification;
                 SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Sorting interrupted");
+                    statusLabel.setText("Sorting interrupted" + (report != null ? " - " + report.summary() : ""));
                     statusLabel.setForeground(DANGER_COLOR);
                 });
             } finally {
+                profiler.finish();
+                Arrays.fill(highlightedIndices, -1);
+                publishSnapshot();
                 SwingUtilities.invokeLater(() -> {
                     startButton.setEnabled(true);
                     pauseButton.setEnabled(false);
                     stopButton.setEnabled(false);
                     generateButton.setEnabled(true);
+                    sizeSlider.setEnabled(true);
                     pauseButton.setText("Pause");
-                    Arrays.fill(highlightedIndices, -1);
                     drawPanel.repaint();
                 });
             }
@@ -403,8 +615,19 @@ public class SortingAlgorithmVisualizer extends JFrame {
         sortingThread.start();
     }
 
+    // A stopped run usually leaves partial work behind; say so instead of leaving it silent
+    private void showStoppedVerification() {
+        SortVerifier.Report report = verification;
+        if (report == null) return;
+        SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Sorting stopped - " + report.summary());
+            statusLabel.setForeground(DANGER_COLOR);
+        });
+    }
+
     private void pauseSorting() {
         isPaused.set(!isPaused.get());
+        profiler.setPaused(isPaused.get());
         pauseButton.setText(isPaused.get() ? "Resume" : "Pause");
         statusLabel.setText(isPaused.get() ? "Sorting paused" : "Sorting resumed");
         statusLabel.setForeground(isPaused.get() ? HIGHLIGHT_COLOR : SUCCESS_COLOR);
@@ -426,198 +649,149 @@ public class SortingAlgorithmVisualizer extends JFrame {
     private void highlight(int index1, int index2) {
         highlightedIndices[0] = index1;
         highlightedIndices[1] = index2;
+        publishSnapshot();
         SwingUtilities.invokeLater(() -> drawPanel.repaint());
     }
 
-    // Enhanced sorting algorithms with highlighting
-    private void bubbleSort() throws InterruptedException {
-        for (int i = 0; i < array.length - 1; i++) {
-            for (int j = 0; j < array.length - i - 1; j++) {
-                if (isStopped.get()) return;
-                while (isPaused.get()) Thread.sleep(10);
-                
-                highlight(j, j + 1);
-                comparisons++;
-                updateStats();
-                Thread.sleep(calculateSleepTime());
-                
-                if (array[j] > array[j + 1]) {
-                    int temp = array[j];
-                    array[j] = array[j + 1];
-                    array[j + 1] = temp;
-                    swaps++;
-                    updateStats();
-                }
+    private void runEngine(String algorithm) throws InterruptedException {
+        int[] input = array.clone();
+        int topK = (Integer) topKSpinner.getValue();
+        SortEngine engine = new SortEngine(array, isPaused, isStopped, new SortEngine.Listener() {
+            @Override
+            public void highlight(int index1, int index2) {
+                SortingAlgorithmVisualizer.this.highlight(index1, index2);
             }
-        }
-    }
 
-    private void selectionSort() throws InterruptedException {
-        for (int i = 0; i < array.length - 1; i++) {
-            int minIndex = i;
-            for (int j = i + 1; j < array.length; j++) {
-                if (isStopped.get()) return;
-                while (isPaused.get()) Thread.sleep(10);
-                
-                highlight(minIndex, j);
-                comparisons++;
+            @Override
+            public void statsChanged(int comparisons, int swaps) {
+                SortingAlgorithmVisualizer.this.comparisons = comparisons;
+                SortingAlgorithmVisualizer.this.swaps = swaps;
                 updateStats();
-                Thread.sleep(calculateSleepTime());
-                
-                if (array[j] < array[minIndex]) {
-                    minIndex = j;
-                }
             }
-            if (minIndex != i) {
-                int temp = array[minIndex];
-                array[minIndex] = array[i];
-                array[i] = temp;
-                swaps++;
-                updateStats();
+
+            @Override
+            public void pace() throws InterruptedException {
+                profiler.sleep(calculateSleepTime());
             }
-        }
-    }
 
-    private void insertionSort() throws InterruptedException {
-        for (int i = 1; i < array.length; i++) {
-            int key = array[i];
-            int j = i - 1;
-            while (j >= 0 && array[j] > key) {
-                if (isStopped.get()) return;
-                while (isPaused.get()) Thread.sleep(10);
-                
-                highlight(j, j + 1);
-                comparisons++;
-                array[j + 1] = array[j];
-                j--;
-                swaps++;
-                updateStats();
-                Thread.sleep(calculateSleepTime());
+            @Override
+            public void changed(int from, int to) {
+                snapshots.markDirty(from, to);
             }
-            array[j + 1] = key;
+        });
+        engine.setTopK(topK);
+        int[] tags = SortVerifier.claimsStable(algorithm) ? SortVerifier.identityTags(array.length) : null;
+        engine.setTags(tags);
+        try {
+            engine.run(algorithm);
+        } finally {
+            peakStackDepth = engine.getPeakStackDepth();
+            verification = SortVerifier.verify(algorithm, input, array, tags, topK);
         }
-    }
 
-    private void mergeSort(int left, int right) throws InterruptedException {
-        if (left < right) {
-            int mid = (left + right) / 2;
-            mergeSort(left, mid);
-            mergeSort(mid + 1, right);
-            merge(left, mid, right);
+        // Replay the full sort unpaced on the same input to show the work saved. The
+        // run is over by then: the replay is neither in its profile nor in its phase events
+        profiler.finish();
+        String baseline = SortEngine.fullSortBaseline(algorithm);
+        if (baseline != null && !isStopped.get()) {
+            SortEngine full = new SortEngine(input);
+            full.setRecordPhases(false);
+            full.run(baseline);
+            baselineAlgorithm = baseline;
+            baselineComparisons = full.getComparisons();
+            baselineSwaps = full.getSwaps();
         }
     }
 
-    private void merge(int left, int mid, int right) throws InterruptedException {
-        int n1 = mid - left + 1;
-        int n2 = right - mid;
-        int[] L = new int[n1];
-        int[] R = new int[n2];
-        System.arraycopy(array, left, L, 0, n1);
-        System.arraycopy(array, mid + 1, R, 0, n2);
-
-        int i = 0, j = 0, k = left;
-        while (i < n1 && j < n2) {
-            if (isStopped.get()) return;
-            while (isPaused.get()) Thread.sleep(10);
-            
-            highlight(left + i, mid + 1 + j);
-            comparisons++;
-            updateStats();
-            Thread.sleep(calculateSleepTime());
-            
-            if (L[i] <= R[j]) {
-                array[k++] = L[i++];
-            } else {
-                array[k++] = R[j++];
-            }
-            swaps++;
-            updateStats();
-        }
-        while (i < n1) array[k++] = L[i++];
-        while (j < n2) array[k++] = R[j++];
-    }
+    // Streaming mode: start from the current array as a sorted buffer and feed new
+    // elements into it at the configured rate, timing only the insert itself
+    private void streamInserts(String mode) throws InterruptedException {
+        streamBuffer = StreamingBuffer.create(mode);
+        int[] seed = array.clone();
+        Arrays.sort(seed);
+        streamBuffer.bulkLoad(seed);
+
+        // Everything fed in so far, for the permutation check
+        long expectedHash = SortVerifier.multisetHash(seed);
+        int expectedLength = seed.length;
+
+        int inserts = (Integer) insertCountSpinner.getValue();
+        insertLatencies = new LatencyHistogram();
+        insertCount = 0;
+        double[] costHistory = new double[COST_POINTS];
+        int costPoints = 0, costStride = 1;
+        Random rand = new Random();
+        // Pace against a deadline so the time spent redrawing doesn't slow the feed
+        // below the slider rate; the bar view itself is refreshed at most once a frame
+        long deadline = System.nanoTime(), nextFrame = deadline;
+        try {
+            for (int n = 0; n < inserts; n++) {
+                if (isStopped.get()) break;
+                if (isPaused.get()) {
+                    while (isPaused.get()) Thread.sleep(10);
+                    deadline = System.nanoTime();
+                }
 
-    private void quickSort(int low, int high) throws InterruptedException {
-        if (low < high) {
-            int pi = partition(low, high);
-            quickSort(low, pi - 1);
-            quickSort(pi + 1, high);
-        }
-    }
+                int value = rand.nextInt(500) + 1;
+                long begin = System.nanoTime();
+                streamBuffer.insert(value);
+                insertLatencies.record(System.nanoTime() - begin);
+                insertCount++;
+                expectedHash += SortVerifier.mix(value);
+                expectedLength++;
+
+                // Keep at most COST_POINTS evenly spaced points: when full, drop every
+                // other one and sample half as often
+                if (insertCount % costStride == 0) {
+                    if (costPoints == COST_POINTS) {
+                        for (int i = 0; i < COST_POINTS / 2; i++) {
+                            costHistory[i] = costHistory[2 * i + 1];
+                        }
+                        costPoints = COST_POINTS / 2;
+                        costStride *= 2;
+                    }
+                    if (insertCount % costStride == 0) {
+                        costHistory[costPoints++] = (double) streamBuffer.getMoves() / insertCount;
+                    }
+                }
 
-    private int partition(int low, int high) throws InterruptedException {
-        int pivot = array[high];
-        int i = low - 1;
-        for (int j = low; j < high; j++) {
-            if (isStopped.get()) return high;
-            while (isPaused.get()) Thread.sleep(10);
-            
-            highlight(j, high);
-            comparisons++;
-            updateStats();
-            Thread.sleep(calculateSleepTime());
-            
-            if (array[j] <= pivot) {
-                i++;
-                int temp = array[i];
-                array[i] = array[j];
-                array[j] = temp;
-                swaps++;
-                updateStats();
-            }
-        }
-        int temp = array[i + 1];
-        array[i + 1] = array[high];
-        array[high] = temp;
-        swaps++;
-        updateStats();
-        return i + 1;
-    }
+                long now = System.nanoTime();
+                if (now - nextFrame >= 0) {
+                    liveStream = new StreamStats(insertCount, inserts, streamBuffer.size(), insertLatencies,
+                            (double) streamBuffer.getMoves() / insertCount, Arrays.copyOf(costHistory, costPoints));
+                    array = streamBuffer.toArray();
+                    comparisons = (int) streamBuffer.getComparisons();
+                    swaps = (int) streamBuffer.getMoves();
+                    highlight(streamBuffer.lastInsertIndex(), -1);
+                    updateStats();
+                    updateStreamStatus(inserts);
+                    nextFrame = now + STREAM_FRAME_NANOS;
+                }
 
-    private void heapSort() throws InterruptedException {
-        int n = array.length;
-        for (int i = n / 2 - 1; i >= 0; i--) {
-            heapify(n, i);
-        }
-        for (int i = n - 1; i >= 0; i--) {
-            if (isStopped.get()) return;
-            while (isPaused.get()) Thread.sleep(10);
-            
-            int temp = array[0];
-            array[0] = array[i];
-            array[i] = temp;
-            swaps++;
+                deadline += 1_000_000_000L / streamRateSlider.getValue();
+                int millis = (int) ((deadline - System.nanoTime() + 500_000) / 1_000_000);
+                if (millis > 0) profiler.sleep(millis);
+            }
+        } finally {
+            // Leave a single sorted sequence behind; compaction counts towards merge cost
+            streamBuffer.compact();
+            array = streamBuffer.toArray();
+            comparisons = (int) streamBuffer.getComparisons();
+            swaps = (int) streamBuffer.getMoves();
+            highlight(-1, -1);
             updateStats();
-            heapify(i, 0);
-            Thread.sleep(calculateSleepTime());
+            if (insertCount > 0) {
+                liveStream = new StreamStats(insertCount, inserts, streamBuffer.size(), insertLatencies,
+                        (double) streamBuffer.getMoves() / insertCount, Arrays.copyOf(costHistory, costPoints));
+            }
+            verification = SortVerifier.verify(mode, expectedHash, expectedLength, array, null, 0);
         }
     }
 
-    private void heapify(int n, int i) throws InterruptedException {
-        int largest = i;
-        int left = 2 * i + 1;
-        int right = 2 * i + 2;
-
-        if (left < n && array[left] > array[largest]) {
-            largest = left;
-        }
-        if (right < n && array[right] > array[largest]) {
-            largest = right;
-        }
-        if (largest != i) {
-            if (isStopped.get()) return;
-            while (isPaused.get()) Thread.sleep(10);
-            
-            highlight(i, largest);
-            comparisons++;
-            int swap = array[i];
-            array[i] = array[largest];
-            array[largest] = swap;
-            swaps++;
-            updateStats();
-            Thread.sleep(calculateSleepTime());
-            heapify(n, largest);
-        }
+    private void updateStreamStatus(int inserts) {
+        String text = String.format("Streaming %d/%d inserts - p99 insert %.1f \u00b5s",
+                insertCount, inserts, insertLatencies.percentile(99) / 1000.0);
+        SwingUtilities.invokeLater(() -> statusLabel.setText(text));
     }
 
     private void showComplexityDialog() {
@@ -699,7 +873,7 @@ public class SortingAlgorithmVisualizer extends JFrame {
                 info.append("<ul><li><b>Best Case:</b> O(n log n) - Good pivot selection</li>");
                 info.append("<li><b>Average Case:</b> O(n log n)</li>");
                 info.append("<li><b>Worst Case:</b> <span class='complexity'>O(n&sup2;)</span> - Poor pivot selection</li></ul>");
-                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(log n) - Recursive calls</p>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(log n) - Explicit stack, smaller partition first</p>");
                 info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
                 info.append("<ul><li>Not stable</li><li>In-place sorting</li><li>Generally fastest practical sorting algorithm</li></ul>");
                 break;
@@ -712,6 +886,66 @@ public class SortingAlgorithmVisualizer extends JFrame {
                 info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
                 info.append("<ul><li>Not stable</li><li>Consistent O(n log n) performance</li><li>Uses heap data structure</li></ul>");
                 break;
+            case "Quickselect (Median)":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity:</h3>");
+                info.append("<ul><li><b>Best Case:</b> O(n) - First pivot lands on the median</li>");
+                info.append("<li><b>Average Case:</b> O(n)</li>");
+                info.append("<li><b>Worst Case:</b> <span class='complexity'>O(n&sup2;)</span> - Poor pivot selection</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(1) - Iterative, in-place</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Partitions only the side holding the median</li><li>Leaves the rest unordered</li><li>Same partition step as Quick Sort</li></ul>");
+                break;
+            case "Introselect (Median)":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity:</h3>");
+                info.append("<ul><li><b>Best Case:</b> O(n)</li>");
+                info.append("<li><b>Average Case:</b> O(n)</li>");
+                info.append("<li><b>Worst Case:</b> O(n log n) - Falls back to heap selection</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(1) - Iterative, in-place</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Median-of-three pivots</li><li>Heap selection after 2 log n partitions</li><li>No quadratic worst case</li></ul>");
+                break;
+            case "Heap Top-K":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity:</h3>");
+                info.append("<ul><li><b>Best Case:</b> O(n + k log n)</li>");
+                info.append("<li><b>Average Case:</b> O(n + k log n)</li>");
+                info.append("<li><b>Worst Case:</b> O(n + k log n)</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(1) - In-place sorting</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Heap Sort stopped after k extractions</li><li>Top k end up ordered at the end of the array</li><li>Not stable</li></ul>");
+                break;
+            case "Partial Quick Sort (Top-K)":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity:</h3>");
+                info.append("<ul><li><b>Best Case:</b> O(n + k log k)</li>");
+                info.append("<li><b>Average Case:</b> O(n + k log k)</li>");
+                info.append("<li><b>Worst Case:</b> <span class='complexity'>O(n&sup2;)</span> - Poor pivot selection</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(log n) - Explicit stack, smaller partition first</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Skips partitions below the top k</li><li>Top k end up ordered at the end of the array</li><li>Not stable</li></ul>");
+                break;
+            case "Stream: Binary Insertion":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity (per insert):</h3>");
+                info.append("<ul><li><b>Search:</b> O(log n) comparisons</li>");
+                info.append("<li><b>Insert:</b> <span class='complexity'>O(n)</span> element moves to shift the tail</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(n) - One contiguous sorted array</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Always fully sorted</li><li>Insert cost grows linearly with the buffer</li><li>Cheapest reads</li></ul>");
+                break;
+            case "Stream: Blocked Array":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity (per insert):</h3>");
+                info.append("<ul><li><b>Search:</b> O(log n) comparisons over block bounds, then inside the block</li>");
+                info.append("<li><b>Insert:</b> O(B) element moves, plus a split every B/2 inserts into a block</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(n) - Blocks are at least half full</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Always fully sorted</li><li>Like the leaf level of a B-tree</li><li>Insert cost bounded by block size</li></ul>");
+                break;
+            case "Stream: LSM Runs":
+                info.append("<h3 style='color: #2ecc71;'>Time Complexity (per insert):</h3>");
+                info.append("<ul><li><b>Amortized:</b> O(log n) element moves</li>");
+                info.append("<li><b>Worst Case:</b> <span class='complexity'>O(n)</span> - A cascade of merges</li></ul>");
+                info.append("<h3 style='color: #2ecc71;'>Space Complexity:</h3><p>O(n) - Merges allocate a new run</p>");
+                info.append("<h3 style='color: #2ecc71;'>Characteristics:</h3>");
+                info.append("<ul><li>Sorted runs of power-of-two sizes</li><li>Cheap inserts, reads must consult every run</li><li>Latency spikes when runs merge</li></ul>");
+                break;
         }
         
         // Add performance statistics
@@ -719,9 +953,62 @@ public class SortingAlgorithmVisualizer extends JFrame {
         info.append("<p><b>Array Size:</b> ").append(array.length).append(" elements<br>");
         info.append("<b>Total Comparisons:</b> ").append(comparisons).append("<br>");
         info.append("<b>Total Swaps:</b> ").append(swaps).append("<br>");
-        long endTime = System.currentTimeMillis();
-        double duration = (endTime - startTime) / 1000.0;
+        if (peakStackDepth > 0) {
+            info.append("<b>Peak Stack Depth:</b> ").append(peakStackDepth).append(" frames<br>");
+        }
+        SortProfiler profile = profiler;
+        double duration = profile != null ? profile.elapsedMillis() / 1000.0 : 0;
         info.append("<b>Execution Time:</b> ").append(String.format("%.3f", duration)).append(" seconds</p>");
+
+        // Add the time breakdown behind the execution time
+        if (profile != null) {
+            info.append("<h3 style='color: #f39c12;'>Time Breakdown:</h3>");
+            info.append("<p><b>Computing:</b> ").append(String.format("%.1f", profile.computeMillis())).append(" ms<br>");
+            info.append("<b>Pacing Sleeps:</b> ").append(String.format("%.1f", profile.sleepMillis())).append(" ms<br>");
+            info.append("<b>Paused:</b> ").append(String.format("%.1f", profile.pausedMillis())).append(" ms<br>");
+            info.append("<b>Painting:</b> ").append(String.format("%.1f", profile.paintMillis()))
+                .append(" ms (").append(String.format("%.2f", profile.paintMillisPerFrame())).append(" ms per frame)<br>");
+            info.append("<b>Waiting for the EDT:</b> ").append(String.format("%.2f", profile.edtWaitMillisPerFrame()))
+                .append(" ms per frame<br>");
+            info.append("<b>Frames:</b> ").append(profile.framesPainted()).append(" painted of ")
+                .append(profile.framesPublished()).append(" published</p>");
+        }
+
+        // Add the verification result
+        SortVerifier.Report report = verification;
+        if (report != null) {
+            info.append("<h3 style='color: ").append(report.passed() ? "#2ecc71" : "#e74c3c").append(";'>Verification:</h3>");
+            info.append("<p>").append(report.summary()).append("</p>");
+        }
+
+        // Add work saved against the full sort
+        if (baselineAlgorithm != null) {
+            info.append("<h3 style='color: #f39c12;'>Compared with Full ").append(baselineAlgorithm).append(":</h3>");
+            info.append("<p><b>Full Sort Comparisons:</b> ").append(baselineComparisons).append("<br>");
+            info.append("<b>Full Sort Swaps:</b> ").append(baselineSwaps).append("<br>");
+            info.append("<b>Comparisons Saved:</b> ")
+                .append(String.format("%.1f%%", percentSaved(comparisons, baselineComparisons))).append("<br>");
+            info.append("<b>Swaps Saved:</b> ")
+                .append(String.format("%.1f%%", percentSaved(swaps, baselineSwaps))).append("</p>");
+        }
+
+        // Add streaming statistics
+        if (streamBuffer != null && insertCount > 0) {
+            info.append("<h3 style='color: #f39c12;'>Streaming Statistics:</h3>");
+            info.append("<p><b>Inserts:</b> ").append(insertCount).append("<br>");
+            info.append("<b>Insert Latency p50 / p90 / p99 / max:</b> ")
+                .append(String.format("%.1f / %.1f / %.1f / %.1f",
+                    insertLatencies.percentile(50) / 1000.0, insertLatencies.percentile(90) / 1000.0,
+                    insertLatencies.percentile(99) / 1000.0, insertLatencies.max() / 1000.0))
+                .append(" &micro;s<br>");
+            info.append("<b>Amortized Merge Cost:</b> ")
+                .append(String.format("%.2f", (double) streamBuffer.getMoves() / insertCount))
+                .append(" element moves per insert");
+            if (streamBuffer instanceof StreamingBuffer.LogStructured) {
+                info.append("<br><b>Run Merges:</b> ").append(((StreamingBuffer.LogStructured) streamBuffer).getMergeCount());
+            }
+            info.append("</p>");
+        }
         
         // Add efficiency analysis
         double theoreticalComparisons = getTheoreticalComparisons(algorithm, array.length);
@@ -736,6 +1023,10 @@ public class SortingAlgorithmVisualizer extends JFrame {
         return info.toString();
     }
     
+    private double percentSaved(int actual, int full) {
+        return full == 0 ? 0 : (full - actual) * 100.0 / full;
+    }
+
     private double getTheoreticalComparisons(String algorithm, int n) {
         switch (algorithm) {
             case "Bubble Sort":
@@ -750,6 +1041,17 @@ public class SortingAlgorithmVisualizer extends JFrame {
                 return n * Math.log(n) / Math.log(2); // Average case
             case "Heap Sort":
                 return n * Math.log(n) / Math.log(2);
+            case "Quickselect (Median)":
+            case "Introselect (Median)":
+                return 3.4 * n; // Average case for the median
+            case "Heap Top-K": {
+                int k = Math.min((Integer) topKSpinner.getValue(), n);
+                return 2.0 * n + k * Math.log(n) / Math.log(2);
+            }
+            case "Partial Quick Sort (Top-K)": {
+                int k = Math.min((Integer) topKSpinner.getValue(), n);
+                return 2.0 * n + k * Math.log(Math.max(k, 2)) / Math.log(2);
+            }
             default:
                 return -1;
         }
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sorted structures that accept elements one at a time while staying queryable.
+// Each one counts comparisons and element moves so the streaming mode can show
+// what an insert really costs as the structure grows.
+public abstract class StreamingBuffer {
+    protected long comparisons = 0, moves = 0;
+    protected int lastInsertIndex = -1;
+
+    // lastInsertIndex() tells where the value landed in toArray() order; it is only
+    // for the display, so structures may work it out there rather than in insert()
+    public abstract void insert(int value);
+
+    public abstract int size();
+
+    // Flattened view of the structure in storage order
+    public abstract int[] toArray();
+
+    // Brings the structure into a single globally sorted sequence
+    public void compact() {
+    }
+
+    public void bulkLoad(int[] values) {
+        for (int value : values) {
+            insert(value);
+        }
+        compact();
+        comparisons = 0;
+        moves = 0;
+    }
+
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public int lastInsertIndex() {
+        return lastInsertIndex;
+    }
+
+    public static StreamingBuffer create(String mode) {
+        switch (mode) {
+            case "Stream: Binary Insertion": return new BinaryInsertion();
+            case "Stream: Blocked Array": return new BlockedArray(32);
+            case "Stream: LSM Runs": return new LogStructured();
+            default: throw new IllegalArgumentException("Unknown streaming mode: " + mode);
+        }
+    }
+
+    // First index in data[from, to) whose value is greater than key (keeps equal keys stable)
+    protected int upperBound(int[] data, int from, int to, int key) {
+        int low = from, high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            comparisons++;
+            if (data[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // One contiguous sorted array, binary search then shift the tail
+    static class BinaryInsertion extends StreamingBuffer {
+        private int[] data = new int[16];
+        private int size = 0;
+
+        @Override
+        public void insert(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            int pos = upperBound(data, 0, size, value);
+            System.arraycopy(data, pos, data, pos + 1, size - pos);
+            moves += size - pos;
+            data[pos] = value;
+            size++;
+            lastInsertIndex = pos;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    // B-tree style leaf level: fixed-capacity sorted blocks, split in half when full
+    static class BlockedArray extends StreamingBuffer {
+        private final int blockCapacity;
+        private final List<int[]> blocks = new ArrayList<>();
+        private int[] blockSizes = new int[16]; // parallel to blocks
+        private int size = 0;
+        private int lastBlock = -1, lastPos = -1;
+
+        BlockedArray(int blockCapacity) {
+            this.blockCapacity = blockCapacity;
+        }
+
+        @Override
+        public void insert(int value) {
+            if (blocks.isEmpty()) {
+                blocks.add(new int[blockCapacity]);
+                blockSizes[0] = 0;
+            }
+
+            // Find the first block whose maximum is greater than the value
+            int low = 0, high = blocks.size() - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                comparisons++;
+                if (blocks.get(mid)[blockSizes[mid] - 1] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int blockIndex = low;
+            int[] block = blocks.get(blockIndex);
+            int used = blockSizes[blockIndex];
+
+            int pos = upperBound(block, 0, used, value);
+            System.arraycopy(block, pos, block, pos + 1, used - pos);
+            moves += used - pos;
+            block[pos] = value;
+            used++;
+            blockSizes[blockIndex] = used;
+            size++;
+            lastBlock = blockIndex;
+            lastPos = pos;
+
+            if (used == blockCapacity) {
+                int half = used / 2;
+                int[] right = new int[blockCapacity];
+                System.arraycopy(block, half, right, 0, used - half);
+                moves += used - half;
+                blocks.add(blockIndex + 1, right);
+                if (blocks.size() > blockSizes.length) {
+                    blockSizes = Arrays.copyOf(blockSizes, blockSizes.length * 2);
+                }
+                System.arraycopy(blockSizes, blockIndex + 1, blockSizes, blockIndex + 2, blocks.size() - blockIndex - 2);
+                blockSizes[blockIndex] = half;
+                blockSizes[blockIndex + 1] = used - half;
+            }
+        }
+
+        // Blocks before the one written last, then the position inside it (or its split-off half)
+        @Override
+        public int lastInsertIndex() {
+            if (lastBlock < 0) return -1;
+            int offset = 0;
+            for (int b = 0; b < lastBlock; b++) {
+                offset += blockSizes[b];
+            }
+            return offset + lastPos;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int[] toArray() {
+            int[] result = new int[size];
+            int k = 0;
+            for (int b = 0; b < blocks.size(); b++) {
+                int used = blockSizes[b];
+                System.arraycopy(blocks.get(b), 0, result, k, used);
+                k += used;
+            }
+            return result;
+        }
+    }
+
+    // Log-structured merge: every insert is a run of one, equal-sized runs merge like a binary counter
+    static class LogStructured extends StreamingBuffer {
+        private final List<int[]> runs = new ArrayList<>();
+        private int size = 0;
+        private long mergeCount = 0;
+        private int lastValue;
+
+        @Override
+        public void insert(int value) {
+            int[] run = {value};
+            while (!runs.isEmpty() && runs.get(runs.size() - 1).length <= run.length) {
+                run = merge(runs.remove(runs.size() - 1), run);
+            }
+            runs.add(run);
+            size++;
+            lastValue = value;
+        }
+
+        // The value always ends up in the newest run, which sits at the end of toArray()
+        @Override
+        public int lastInsertIndex() {
+            if (runs.isEmpty()) return -1;
+            int[] newest = runs.get(runs.size() - 1);
+            return size - newest.length + Arrays.binarySearch(newest, lastValue);
+        }
+
+        @Override
+        public void compact() {
+            while (runs.size() > 1) {
+                int[] newer = runs.remove(runs.size() - 1);
+                int[] older = runs.remove(runs.size() - 1);
+                runs.add(merge(older, newer));
+            }
+        }
+
+        private int[] merge(int[] older, int[] newer) {
+            int[] merged = new int[older.length + newer.length];
+            int i = 0, j = 0, k = 0;
+            while (i < older.length && j < newer.length) {
+                comparisons++;
+                merged[k++] = older[i] <= newer[j] ? older[i++] : newer[j++];
+            }
+            while (i < older.length) merged[k++] = older[i++];
+            while (j < newer.length) merged[k++] = newer[j++];
+            moves += merged.length;
+            mergeCount++;
+            return merged;
+        }
+
+        @Override
+        public void bulkLoad(int[] values) {
+            super.bulkLoad(values);
+            mergeCount = 0;
+        }
+
+        public long getMergeCount() {
+            return mergeCount;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int[] toArray() {
+            int[] result = new int[size];
+            int k = 0;
+            for (int[] run : runs) {
+                System.arraycopy(run, 0, result, k, run.length);
+                k += run.length;
+            }
+            return result;
+        }
+    }
+}